@@ -0,0 +1,164 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * The `ActiveGameLoop` class renders a GamePanel from its own thread. The round is advanced by
+ * the panel's SimulationLoop, and frames are rendered as often as possible through a
+ * BufferStrategy from the latest GameSnapshot it published, interpolating the moving objects
+ * between the last two ticks.
+ */
+public class ActiveGameLoop implements Runnable {
+
+    // Frames are not rendered more often than this:
+    static final long MIN_FRAME_NANOS = 4_000_000L;
+
+    private final GamePanel gamePanel;
+    private final Canvas canvas;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // Counts the starts, a thread of an earlier start ends as soon as it notices a newer one:
+    private volatile int generation;
+    private Thread previousThread;
+
+    /**
+     * Constructs a new ActiveGameLoop.
+     *
+     * @param gamePanel The game panel that is advanced and rendered.
+     * @param canvas    The canvas the frames are rendered on.
+     */
+    public ActiveGameLoop(GamePanel gamePanel, Canvas canvas) {
+        this.gamePanel = gamePanel;
+        this.canvas = canvas;
+    }
+
+    /**
+     * Starts the loop thread, if it is not running yet. The canvas must be displayable.
+     */
+    public synchronized void start() {
+
+        if (running) {
+            return;
+        }
+
+        running = true;
+        generation++;
+        previousThread = thread;
+        thread = new Thread(this, "Fish Game Loop");
+        thread.setDaemon(true);
+        thread.start();
+
+    }
+
+    /**
+     * Stops the loop. The current frame is finished, but no further ticks are run.
+     */
+    public synchronized void stop() {
+        running = false;
+    }
+
+    /**
+     * Checks if the loop is running.
+     *
+     * @return True if the loop was started and not stopped yet.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Checks if the loop of the specified start should keep running.
+     */
+    private boolean isCurrent(int started) {
+        return running && generation == started;
+    }
+
+    @Override
+    public void run() {
+
+        int started;
+        Thread previous;
+        synchronized (this) {
+            started = generation;
+            previous = previousThread;
+        }
+
+        // The thread of an earlier start may still be finishing a frame on the canvas:
+        if (previous != null) {
+            try {
+                previous.join();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+
+        canvas.createBufferStrategy(2);
+        BufferStrategy bufferStrategy = canvas.getBufferStrategy();
+
+        while (isCurrent(started)) {
+
+            long frameStart = System.nanoTime();
+
+            // The snapshot stays untouched by the simulation until the next call:
+            GameSnapshot snapshot = gamePanel.snapshots.latest();
+            double alpha = Math.min(1.0, (double) (frameStart - snapshot.nanos) / GameClock.TICK_NANOS);
+
+            try {
+                render(bufferStrategy, snapshot, alpha);
+            } catch (IllegalStateException e) {
+                // The canvas was removed from the screen while it was being rendered.
+                if (isCurrent(started)) {
+                    e.printStackTrace();
+                }
+                break;
+            }
+
+            long sleepNanos = MIN_FRAME_NANOS - (System.nanoTime() - frameStart);
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (generation == started) {
+                running = false;
+            }
+        }
+        bufferStrategy.dispose();
+
+    }
+
+    /**
+     * Renders one frame and shows it on the canvas.
+     *
+     * @param bufferStrategy The buffer strategy of the canvas.
+     * @param snapshot       The state of the round to render.
+     * @param alpha          How far the frame is between the previous and the current tick (0 to 1).
+     */
+    private void render(BufferStrategy bufferStrategy, GameSnapshot snapshot, double alpha) {
+
+        do {
+            do {
+                Graphics2D g2d = (Graphics2D) bufferStrategy.getDrawGraphics();
+                try {
+                    g2d.translate(-canvas.getX(), -canvas.getY());
+                    gamePanel.renderFrame(g2d, snapshot, alpha);
+                } finally {
+                    g2d.dispose();
+                }
+            } while (bufferStrategy.contentsRestored());
+
+            bufferStrategy.show();
+        } while (bufferStrategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+        gamePanel.inputLatency.frameShown(snapshot.tick);
+
+    }
+
+}
@@ -0,0 +1,186 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+/**
+ * The `AssetCache` class is a process-wide cache of images. Every image is decoded from disk once,
+ * scaled to the requested size and converted to a format that is compatible with the screen,
+ * so drawing it later never touches the disk or the image decoder.
+ */
+public final class AssetCache {
+
+    private static final ConcurrentHashMap<String, BufferedImage> images = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong bytesHeld = new AtomicLong();
+
+    private AssetCache() {}
+
+    /**
+     * Returns the image stored at the specified path in its original size.
+     *
+     * @param path The path of the image file.
+     * @return The cached image.
+     */
+    public static BufferedImage getImage(String path) {
+        return getImage(path, -1, -1);
+    }
+
+    /**
+     * Returns the image stored at the specified path, scaled to the specified size.
+     *
+     * @param path   The path of the image file.
+     * @param width  The width of the returned image, or -1 to keep the original width.
+     * @param height The height of the returned image, or -1 to keep the original height.
+     * @return The cached image.
+     */
+    public static BufferedImage getImage(String path, int width, int height) {
+
+        String key = path + "@" + width + "x" + height;
+
+        BufferedImage image = images.get(key);
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+
+        return images.computeIfAbsent(key, k -> {
+            misses.incrementAndGet();
+            BufferedImage loaded = load(path, width, height);
+            bytesHeld.addAndGet(sizeOf(loaded));
+            return loaded;
+        });
+
+    }
+
+    /**
+     * Returns the image stored at the specified path in the specified size if it was loaded
+     * before, without loading it.
+     *
+     * @param path   The path of the image file.
+     * @param width  The width of the image, or -1 for the original width.
+     * @param height The height of the image, or -1 for the original height.
+     * @return The cached image, or null if it is not loaded yet.
+     */
+    public static BufferedImage getLoadedImage(String path, int width, int height) {
+        return images.get(path + "@" + width + "x" + height);
+    }
+
+    /**
+     * Returns how many requests were answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many requests had to load an image from disk.
+     *
+     * @return The number of cache misses.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the approximate amount of memory used by the cached images.
+     *
+     * @return The number of bytes held by the cache.
+     */
+    public static long getBytesHeld() {
+        return bytesHeld.get();
+    }
+
+    /**
+     * Removes every image from the cache.
+     */
+    public static void clear() {
+
+        for (BufferedImage image : images.values()) {
+            image.flush();
+        }
+        images.clear();
+        bytesHeld.set(0);
+
+    }
+
+    /**
+     * Loads and scales an image. If the file cannot be read an empty image is returned,
+     * so a missing file is only reported once.
+     */
+    private static BufferedImage load(String path, int width, int height) {
+
+        BufferedImage source;
+        try {
+            source = ImageIO.read(new File(path));
+            if (source == null) {
+                throw new IOException("Unsupported image format: " + path);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return createImage(Math.max(width, 1), Math.max(height, 1));
+        }
+
+        int targetWidth = width > 0 ? width : source.getWidth();
+        int targetHeight = height > 0 ? height : source.getHeight();
+
+        // Halving the image step by step keeps the quality close to Image.SCALE_SMOOTH:
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            if (currentWidth / 2 < targetWidth) {
+                currentWidth = targetWidth;
+            }
+            if (currentHeight / 2 < targetHeight) {
+                currentHeight = targetHeight;
+            }
+
+            BufferedImage scaled = createImage(currentWidth, currentHeight);
+            Graphics2D g2d = scaled.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g2d.dispose();
+
+            if (current != source) {
+                current.flush();
+            }
+            current = scaled;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+
+        return current;
+
+    }
+
+    /**
+     * Creates an empty translucent image in the format of the screen.
+     */
+    private static BufferedImage createImage(int width, int height) {
+
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+            .getDefaultScreenDevice()
+            .getDefaultConfiguration()
+            .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * Math.max(1, image.getColorModel().getPixelSize() / 8);
+    }
+
+}
@@ -0,0 +1,243 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * The `AssetPreloader` class loads the images and sounds of the game on a pool of worker threads
+ * while the starting screen is shown, so a round starts without reading or decoding any file on
+ * the event dispatch thread. Images are put into the AssetCache in the sizes the game draws
+ * them in, and sounds are decoded by the SoundEngine.
+ *
+ * Every file under Images/ and Sounds/ is loaded, the files the game does not name are loaded
+ * in their original size. The background music is streamed by the MusicPlayer and is skipped.
+ */
+public class AssetPreloader {
+
+    static final String IMAGES_DIRECTORY = "Images";
+    static final String SOUNDS_DIRECTORY = "Sounds";
+
+    private static AssetPreloader defaultPreloader;
+
+    /**
+     * The `Asset` class is one image in one size, or one sound.
+     */
+    static class Asset {
+
+        final String path;
+        final int width;
+        final int height;
+        final boolean sound;
+
+        Asset(String path, int width, int height, boolean sound) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+            this.sound = sound;
+        }
+
+        void load() {
+            if (sound) {
+                SoundEngine.getDefault().load(path);
+            } else {
+                AssetCache.getImage(path, width, height);
+            }
+        }
+
+    }
+
+    private final List<Asset> assets = new ArrayList<>();
+    private final List<Runnable> listeners = new ArrayList<>();
+
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicLong workNanos = new AtomicLong();
+    private long startTime;
+    private volatile long elapsedNanos = -1;
+    private int threads;
+
+    /**
+     * Starts loading the assets of the game, or returns the preloader that was started before.
+     *
+     * @param backgroundWidth The width the starting screen draws its background in.
+     * @param backgroundHeight The height the starting screen draws its background in.
+     * @return The preloader of the game.
+     */
+    public static synchronized AssetPreloader start(int backgroundWidth, int backgroundHeight) {
+
+        if (defaultPreloader == null) {
+            defaultPreloader = forGame(backgroundWidth, backgroundHeight);
+            defaultPreloader.start(Runtime.getRuntime().availableProcessors());
+        }
+        return defaultPreloader;
+
+    }
+
+    /**
+     * Creates a preloader for the assets of the game, not started yet.
+     */
+    static AssetPreloader forGame(int backgroundWidth, int backgroundHeight) {
+
+        AssetPreloader preloader = new AssetPreloader();
+
+        // The biggest images first, so they do not end up last on one thread:
+        preloader.addImage(StartingScreen.BACKGROUND_IMAGE, backgroundWidth, backgroundHeight);
+        preloader.addImage("Images/boatfisher1.png", 200, 250);
+        preloader.addImage("Images/boatfisher2.png", 200, 250);
+        preloader.addImage("Images/fish11.png", FishStore.FISH_WIDTH, FishStore.FISH_HEIGHT);
+        preloader.addImage("Images/fish21.png", FishStore.FISH_WIDTH, FishStore.FISH_HEIGHT);
+        preloader.addImage("Images/bait.png", 40, 40);
+        preloader.addImage("Images/baitcross.png", 40, 40);
+        preloader.addSound(GamePanel.FISH_CAUGHT_SOUND_PATH);
+
+        Set<String> named = new LinkedHashSet<>();
+        for (Asset asset : preloader.assets) {
+            named.add(asset.path);
+        }
+        named.add(StartingScreen.BACKGROUND_MUSIC);
+
+        for (String path : list(IMAGES_DIRECTORY)) {
+            if (!named.contains(path)) {
+                preloader.addImage(path, -1, -1);
+            }
+        }
+        for (String path : list(SOUNDS_DIRECTORY)) {
+            if (!named.contains(path)) {
+                preloader.addSound(path);
+            }
+        }
+
+        return preloader;
+
+    }
+
+    void addImage(String path, int width, int height) {
+        assets.add(new Asset(path, width, height, false));
+    }
+
+    void addSound(String path) {
+        assets.add(new Asset(path, -1, -1, true));
+    }
+
+    /**
+     * Loads every asset on a pool of threads. The threads end once everything is loaded.
+     *
+     * @param threads The largest number of threads to use.
+     */
+    void start(int threads) {
+
+        this.threads = Math.max(1, Math.min(threads, assets.size()));
+        startTime = System.nanoTime();
+
+        if (assets.isEmpty()) {
+            finished();
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "Asset Preloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Asset asset : assets) {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    asset.load();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    // A failed asset counts as loaded, so the game can still be started:
+                    workNanos.addAndGet(System.nanoTime() - start);
+                    if (loaded.incrementAndGet() == assets.size()) {
+                        finished();
+                    }
+                    notifyListeners();
+                }
+            });
+        }
+        executor.shutdown();
+
+    }
+
+    private void finished() {
+
+        long elapsed = System.nanoTime() - startTime;
+        FishGame.logStartup(String.format("assets preloaded (%d assets in %.1f ms, %.1f ms of work on %d threads)",
+            assets.size(), elapsed / 1e6, workNanos.get() / 1e6, threads));
+        elapsedNanos = elapsed;
+
+    }
+
+    /**
+     * Adds a listener that is called on the event dispatch thread after every loaded asset. If
+     * everything is loaded already, it is called once right away.
+     *
+     * @param listener The listener, which can read the progress with getLoaded() and getTotal().
+     */
+    public void addListener(Runnable listener) {
+
+        synchronized (listeners) {
+            listeners.add(listener);
+        }
+        SwingUtilities.invokeLater(listener);
+
+    }
+
+    /**
+     * Removes a listener added by addListener().
+     */
+    public void removeListener(Runnable listener) {
+        synchronized (listeners) {
+            listeners.remove(listener);
+        }
+    }
+
+    private void notifyListeners() {
+
+        List<Runnable> current;
+        synchronized (listeners) {
+            current = new ArrayList<>(listeners);
+        }
+        for (Runnable listener : current) {
+            SwingUtilities.invokeLater(listener);
+        }
+
+    }
+
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    public int getTotal() {
+        return assets.size();
+    }
+
+    public boolean isDone() {
+        return elapsedNanos >= 0;
+    }
+
+    /**
+     * Returns the files of a directory of assets, sorted by name.
+     */
+    private static List<String> list(String directory) {
+
+        List<String> paths = new ArrayList<>();
+        File[] files = new File(directory).listFiles(File::isFile);
+        if (files != null) {
+            java.util.Arrays.sort(files);
+            for (File file : files) {
+                paths.add(directory + "/" + file.getName());
+            }
+        }
+        return paths;
+
+    }
+
+}
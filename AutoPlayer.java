@@ -0,0 +1,131 @@
+import java.util.Random;
+
+/**
+ * The `AutoPlayer` class is a scripted player for headless rounds. Before every tick it
+ * predicts where the fishes will be when a bait cast now reaches their lane, casts when a catch
+ * is likely and otherwise moves the boat ahead of an approaching fish. When it misses the moment
+ * it casts too late, after the fish has passed, and usually loses the bait. Its accuracy and
+ * reaction time are random but seeded, so a round played with the same seed is always the same.
+ */
+public class AutoPlayer {
+
+    // The longest the player waits before acting again:
+    static final int MAX_REACTION_TICKS = 8;
+
+    private final Random random;
+    private final double accuracy;
+    private int waitTicks;
+
+    // Whether the player missed the moment and casts once the fish has passed:
+    private boolean castingLate;
+
+    /**
+     * Constructs a new AutoPlayer.
+     *
+     * @param seed     The seed of the player's decisions.
+     * @param accuracy The chance (0 to 1) that the player casts when a catch is predicted.
+     */
+    public AutoPlayer(long seed, double accuracy) {
+        this.random = new Random(seed);
+        this.accuracy = accuracy;
+    }
+
+    /**
+     * Gives the player a chance to act before the next tick of the engine.
+     *
+     * @param engine The engine of the round.
+     */
+    public void play(GameEngine engine) {
+
+        if (engine.isEnded() || engine.isBaitOut()) {
+            return;
+        }
+
+        if (waitTicks > 0) {
+            waitTicks--;
+            return;
+        }
+
+        if (castingLate) {
+            if (predictCatch(engine, engine.getRodX()) < 0) {
+                castingLate = false;
+                engine.cast();
+            }
+            return;
+        }
+
+        if (predictCatch(engine, engine.getRodX()) >= 0) {
+            if (random.nextDouble() < accuracy) {
+                engine.cast();
+            } else {
+                // Missed the moment, the bait is cast after the fish has passed:
+                castingLate = true;
+                waitTicks = 1 + random.nextInt(MAX_REACTION_TICKS);
+            }
+            return;
+        }
+
+        moveTowardsFish(engine);
+        waitTicks = random.nextInt(MAX_REACTION_TICKS);
+
+    }
+
+    /**
+     * Predicts which fish a bait cast now from the specified x-coordinate would catch.
+     * Speed-ups and fishes swimming out of the screen are not taken into account.
+     *
+     * @param engine The engine of the round.
+     * @param rodX   The x-coordinate of the bait line.
+     * @return The index of the fish, or -1 if the bait would be lost.
+     */
+    static int predictCatch(GameEngine engine, int rodX) {
+
+        FishStore fishStore = engine.getFishStore();
+
+        // The bait is checked against the fishes after they moved, then drops 15 pixels:
+        int rodY = engine.getRodY();
+        for (int tick = 1; rodY < GameEngine.BAIT_LOST_Y; tick++, rodY += GameEngine.ROD_DROP) {
+
+            int lane = FishStore.laneAt(rodY);
+            if (lane < 0) {
+                continue;
+            }
+
+            for (int fish = 0; fish < fishStore.size(); fish++) {
+                if (fishStore.getLane(fish) != lane) {
+                    continue;
+                }
+                double fishX = fishStore.getX(fish) + fishStore.getVelocity(fish) * tick;
+                if (fishX <= rodX && fishX + FishStore.FISH_WIDTH >= rodX) {
+                    return fish;
+                }
+            }
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Moves the boat one step towards the point a random fish will reach when a bait gets to its lane.
+     */
+    private void moveTowardsFish(GameEngine engine) {
+
+        FishStore fishStore = engine.getFishStore();
+        if (fishStore.size() == 0) {
+            return;
+        }
+
+        int fish = random.nextInt(fishStore.size());
+        int ticksToLane = Math.max(0, (fishStore.getY(fish) + FishStore.FISH_HEIGHT / 2 - engine.getRodY()) / GameEngine.ROD_DROP);
+        double targetX = fishStore.getX(fish) + fishStore.getVelocity(fish) * (ticksToLane + 1) + FishStore.FISH_WIDTH / 2.0;
+
+        if (targetX < engine.getRodX() - GameEngine.BOAT_STEP) {
+            engine.moveLeft();
+        } else if (targetX > engine.getRodX() + GameEngine.BOAT_STEP) {
+            engine.moveRight();
+        }
+
+    }
+
+}
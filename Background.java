@@ -1,10 +1,18 @@
 import javax.swing.JComponent;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 
 /**
  * The `Background` class represents the background of the game and includes clouds and water.
+ * Since the background never moves, it is rendered once into a cached layer that is reused on
+ * every repaint.
+ *
+ * The layer is drawn with Graphics2D by default. With -Dfishgame.parallelBackground=true it is
+ * rasterized by a StripeRasterizer instead, in parallel stripes, which pays off for larger windows.
  */
 public class Background extends JComponent {
+
+    static final boolean PARALLEL_RASTERIZER = Boolean.getBoolean("fishgame.parallelBackground");
  
     private Cloud c1;
     private Cloud c2;
@@ -12,6 +20,15 @@ public class Background extends JComponent {
     private Cloud c4;
     private Water water;
 
+    // Cached layer containing the clouds and the water:
+    private BufferedImage layer;
+    private GraphicsConfiguration layerConfiguration;
+    private boolean cached = true;
+    private boolean parallel = PARALLEL_RASTERIZER;
+
+    // Measures how long painting the background takes, may be null:
+    private FrameProfiler profiler;
+
     /**
      * Constructs a new Background object with the specified width and height.
      *
@@ -29,6 +46,105 @@ public class Background extends JComponent {
         
     }
 
+    /**
+     * Chooses between drawing from the cached layer and drawing the clouds and water directly.
+     *
+     * @param cached True to use the cached layer.
+     */
+    public void setCached(boolean cached) {
+        this.cached = cached;
+        repaint();
+    }
+
+    /**
+     * Chooses between drawing the cached layer with Graphics2D and rasterizing it in parallel stripes.
+     *
+     * @param parallel True to rasterize the layer in parallel stripes.
+     */
+    public void setParallel(boolean parallel) {
+
+        if (this.parallel != parallel) {
+            this.parallel = parallel;
+            // The layer is rendered again on the next paint:
+            if (layer != null) {
+                layer.flush();
+                layer = null;
+            }
+            repaint();
+        }
+
+    }
+
+    /**
+     * Sets the profiler that measures the painting of the background.
+     *
+     * @param profiler The profiler, or null to stop measuring.
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Returns the cached layer of the background, rendering it if required.
+     *
+     * @param configuration The configuration of the device the layer will be drawn on, may be null.
+     * @return The image containing the clouds and the water.
+     */
+    public BufferedImage getLayer(GraphicsConfiguration configuration) {
+
+        if (layer == null || layer.getWidth() != getWidth() || layer.getHeight() != getHeight()
+                || configuration != layerConfiguration) {
+
+            if (layer != null) {
+                layer.flush();
+            }
+
+            layer = renderLayer(configuration);
+            layerConfiguration = configuration;
+        }
+
+        return layer;
+
+    }
+
+    /**
+     * Renders a new layer with the clouds and the water, in the size of the component.
+     *
+     * @param configuration The configuration of the device the layer will be drawn on, may be null.
+     * @return The new layer.
+     */
+    BufferedImage renderLayer(GraphicsConfiguration configuration) {
+
+        int width = Math.max(getWidth(), 1);
+        int height = Math.max(getHeight(), 1);
+
+        if (parallel) {
+            BufferedImage rasterized = StripeRasterizer.rasterize(width, height, c1, c2, c3, c4, water);
+            if (configuration == null) {
+                return rasterized;
+            }
+            // The rasterized pixels are copied once into an image the screen can draw quickly:
+            BufferedImage compatible = configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            Graphics2D g2d = compatible.createGraphics();
+            g2d.drawImage(rasterized, 0, 0, null);
+            g2d.dispose();
+            return compatible;
+        }
+
+        BufferedImage rendered;
+        if (configuration != null) {
+            rendered = configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        } else {
+            rendered = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g2d = rendered.createGraphics();
+        drawLayer(g2d);
+        g2d.dispose();
+        return rendered;
+
+    }
+
     /**
      * Paints the background component, including clouds and water, on the specified Graphics object.
      *
@@ -40,6 +156,27 @@ public class Background extends JComponent {
 
         Graphics2D g2d = (Graphics2D) g;
 
+        long start = profiler != null ? profiler.start() : 0;
+
+        if (cached) {
+            g2d.drawImage(getLayer(g2d.getDeviceConfiguration()), 0, 0, null);
+        } else {
+            drawLayer(g2d);
+        }
+
+        if (profiler != null) {
+            profiler.end(FrameProfiler.BACKGROUND, start);
+        }
+
+    }
+
+    /**
+     * Draws the clouds and the water on the specified Graphics2D object.
+     *
+     * @param g2d The Graphics2D object on which to draw.
+     */
+    private void drawLayer(Graphics2D g2d) {
+
         // Makes the images look smoother:
         RenderingHints rh = new RenderingHints(
             RenderingHints.KEY_ANTIALIASING,
@@ -63,4 +200,3 @@ public class Background extends JComponent {
 
 
 }
-
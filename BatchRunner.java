@@ -0,0 +1,282 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * The `BatchRunner` class plays many independent headless rounds with an AutoPlayer and reports
+ * the score distribution, catch rate and baits used for every configuration. The rounds are
+ * spread over a fork-join pool, every round gets its own seed, so the results do not depend on
+ * the number of threads.
+ *
+ * With --check-accuracy every configuration is played at the accuracies 0, 0.5 and 1 instead,
+ * and the runner fails with exit code 1 unless a more accurate player scores more and uses no
+ * more baits, and the perfect player uses fewer baits than the one who always misses.
+ *
+ * Usage: java BatchRunner [--rounds=N] [--threads=N] [--seed=N] [--accuracy=0.8] [--histogram]
+ *                         [--check-accuracy] [config...]
+ * where every config is a GameConfig line such as "time=60000,rods=5,velocities=4/3/2,speedup=400".
+ */
+public class BatchRunner {
+
+    static final int WINDOW_WIDTH = 1280;
+
+    // The accuracies compared by --check-accuracy, from the worst player to the best one:
+    static final double[] CHECKED_ACCURACIES = {0.0, 0.5, 1.0};
+
+    /**
+     * The `Stats` class adds up the results of many rounds. Every thread fills its own instance,
+     * which are merged at the end.
+     */
+    static final class Stats {
+
+        long rounds;
+        long[] scoreCounts = new long[64];
+        long scoreSum;
+        long fishSum;
+        long baitsUsedSum;
+        long timeUpRounds;
+        long ticks;
+
+        void add(GameEngine engine) {
+
+            int score = engine.getPlayerScore();
+            if (score >= scoreCounts.length) {
+                scoreCounts = Arrays.copyOf(scoreCounts, Math.max(score + 1, scoreCounts.length * 2));
+            }
+
+            rounds++;
+            scoreCounts[score]++;
+            scoreSum += score;
+            fishSum += engine.getFishCount();
+            baitsUsedSum += engine.getConfig().getRods() - engine.getRodsLeft();
+            timeUpRounds += engine.isTimeUp() ? 1 : 0;
+            ticks += engine.getTicks();
+
+        }
+
+        void addAll(Stats other) {
+
+            if (other.scoreCounts.length > scoreCounts.length) {
+                scoreCounts = Arrays.copyOf(scoreCounts, other.scoreCounts.length);
+            }
+            for (int i = 0; i < other.scoreCounts.length; i++) {
+                scoreCounts[i] += other.scoreCounts[i];
+            }
+
+            rounds += other.rounds;
+            scoreSum += other.scoreSum;
+            fishSum += other.fishSum;
+            baitsUsedSum += other.baitsUsedSum;
+            timeUpRounds += other.timeUpRounds;
+            ticks += other.ticks;
+
+        }
+
+        int percentile(double fraction) {
+
+            long target = (long) Math.ceil(rounds * fraction);
+            long seen = 0;
+            for (int score = 0; score < scoreCounts.length; score++) {
+                seen += scoreCounts[score];
+                if (seen >= Math.max(target, 1)) {
+                    return score;
+                }
+            }
+            return scoreCounts.length - 1;
+
+        }
+
+        int maxScore() {
+
+            for (int score = scoreCounts.length - 1; score > 0; score--) {
+                if (scoreCounts[score] > 0) {
+                    return score;
+                }
+            }
+            return 0;
+
+        }
+
+    }
+
+    /**
+     * Plays one headless round from start to end.
+     *
+     * @param config   The rules of the round.
+     * @param seed     The seed of the round.
+     * @param accuracy The accuracy of the AutoPlayer.
+     * @return The engine after the round ended.
+     */
+    static GameEngine playRound(GameConfig config, long seed, double accuracy) {
+
+        GameEngine engine = new GameEngine(WINDOW_WIDTH, config, seed, 2);
+        AutoPlayer player = new AutoPlayer(~seed, accuracy);
+
+        while (!engine.isEnded()) {
+            player.play(engine);
+            engine.tick();
+        }
+
+        return engine;
+
+    }
+
+    /**
+     * Plays the specified number of rounds on the pool and adds up their results.
+     *
+     * @param config   The rules of the rounds.
+     * @param rounds   The number of rounds.
+     * @param seed     The seed the seeds of the rounds are derived from.
+     * @param accuracy The accuracy of the AutoPlayer.
+     * @param pool     The pool the rounds are played on.
+     * @return The results of all rounds.
+     */
+    static Stats run(GameConfig config, long rounds, long seed, double accuracy, ForkJoinPool pool)
+            throws InterruptedException, ExecutionException {
+
+        return pool.submit(() -> LongStream.range(0, rounds)
+            .parallel()
+            .collect(Stats::new,
+                (stats, round) -> stats.add(playRound(config, roundSeed(seed, round), accuracy)),
+                Stats::addAll))
+            .get();
+
+    }
+
+    /**
+     * Derives the seed of a round, so neighbouring rounds get unrelated seeds.
+     */
+    static long roundSeed(long seed, long round) {
+
+        long z = seed + (round + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+
+    }
+
+    /**
+     * Plays every configuration at the checked accuracies and checks that the score rises and
+     * the baits used fall with the accuracy.
+     *
+     * @return True if every configuration passed.
+     */
+    static boolean checkAccuracy(List<GameConfig> configs, long rounds, long seed, ForkJoinPool pool)
+            throws InterruptedException, ExecutionException {
+
+        System.out.printf("%d rounds per configuration and accuracy on %d threads, seed %d%n",
+            rounds, pool.getParallelism(), seed);
+        boolean passed = true;
+
+        for (GameConfig config : configs) {
+
+            System.out.println();
+            System.out.println(config);
+
+            double[] scores = new double[CHECKED_ACCURACIES.length];
+            double[] baitsUsed = new double[CHECKED_ACCURACIES.length];
+            for (int i = 0; i < CHECKED_ACCURACIES.length; i++) {
+                Stats stats = run(config, rounds, seed, CHECKED_ACCURACIES[i], pool);
+                scores[i] = (double) stats.scoreSum / stats.rounds;
+                baitsUsed[i] = (double) stats.baitsUsedSum / stats.rounds;
+                System.out.printf("  accuracy %.2f: mean score %.2f, baits used %.2f per round%n",
+                    CHECKED_ACCURACIES[i], scores[i], baitsUsed[i]);
+            }
+
+            boolean configPassed = baitsUsed[baitsUsed.length - 1] < baitsUsed[0];
+            for (int i = 1; i < CHECKED_ACCURACIES.length; i++) {
+                configPassed &= scores[i] > scores[i - 1] && baitsUsed[i] <= baitsUsed[i - 1];
+            }
+            if (!configPassed) {
+                System.out.println("  The results do not follow the accuracy of the player.");
+            }
+            passed &= configPassed;
+        }
+
+        return passed;
+
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+
+        long rounds = 10000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        double accuracy = 0.8;
+        boolean histogram = false;
+        boolean checkAccuracy = false;
+        List<GameConfig> configs = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--rounds=")) {
+                rounds = Long.parseLong(arg.substring("--rounds=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--accuracy=")) {
+                accuracy = Double.parseDouble(arg.substring("--accuracy=".length()));
+            } else if (arg.equals("--histogram")) {
+                histogram = true;
+            } else if (arg.equals("--check-accuracy")) {
+                checkAccuracy = true;
+            } else {
+                configs.add(GameConfig.parse(arg));
+            }
+        }
+
+        if (configs.isEmpty()) {
+            configs.add(GameConfig.DEFAULT);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        if (checkAccuracy) {
+            boolean passed;
+            try {
+                passed = checkAccuracy(configs, rounds, seed, pool);
+            } finally {
+                pool.shutdown();
+            }
+            System.out.println(passed ? "PASSED" : "FAILED");
+            System.exit(passed ? 0 : 1);
+        }
+
+        System.out.printf("%d rounds per configuration on %d threads, seed %d, accuracy %.2f%n", rounds, threads, seed, accuracy);
+
+        try {
+            for (GameConfig config : configs) {
+
+                long start = System.nanoTime();
+                Stats stats = run(config, rounds, seed, accuracy, pool);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                System.out.println();
+                System.out.println(config);
+                System.out.printf("  score: mean %.2f, p10 %d, p50 %d, p90 %d, p99 %d, max %d%n",
+                    (double) stats.scoreSum / stats.rounds, stats.percentile(0.10), stats.percentile(0.50),
+                    stats.percentile(0.90), stats.percentile(0.99), stats.maxScore());
+                System.out.printf("  catch rate: %.1f%% of %.1f fishes per round%n",
+                    100.0 * stats.scoreSum / Math.max(stats.fishSum, 1), (double) stats.fishSum / stats.rounds);
+                System.out.printf("  baits used: %.2f per round, %.1f%% of rounds ended by time%n",
+                    (double) stats.baitsUsedSum / stats.rounds, 100.0 * stats.timeUpRounds / stats.rounds);
+                System.out.printf("  %.2f s, %.0f rounds/s, %.0f ticks/s%n", seconds, stats.rounds / seconds, stats.ticks / seconds);
+
+                if (histogram) {
+                    long largest = Arrays.stream(stats.scoreCounts).max().orElse(1);
+                    for (int score = 0; score <= stats.maxScore(); score++) {
+                        int width = (int) (50 * stats.scoreCounts[score] / Math.max(largest, 1));
+                        System.out.printf("  %4d | %-50s %d%n", score, "#".repeat(width), stats.scoreCounts[score]);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+    }
+
+}
@@ -0,0 +1,254 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The `Benchmarks` class measures the rendering and game logic hot paths: how many operations
+ * run per second and how many bytes every operation allocates. Every benchmark is warmed up
+ * first, then measured over several timed iterations, and the best iteration is reported.
+ *
+ * Usage: java -Djava.awt.headless=true Benchmarks [--time=MILLIS] [--iterations=N] [name filter...]
+ */
+public class Benchmarks {
+
+    static final int WIDTH = 1280;
+    static final int HEIGHT = 920;
+
+    /**
+     * The `Benchmark` interface is one operation to measure. It returns a value that is kept,
+     * so the JIT compiler cannot remove the work.
+     */
+    interface Benchmark {
+        long run(long iteration) throws Exception;
+    }
+
+    private static final List<String> names = new ArrayList<>();
+    private static final List<Benchmark> benchmarks = new ArrayList<>();
+
+    // Results are collected here, so no benchmark is optimized away:
+    static volatile long sink;
+
+    static void add(String name, Benchmark benchmark) {
+        names.add(name);
+        benchmarks.add(benchmark);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        long iterationMillis = 1000;
+        int iterations = 5;
+        List<String> filters = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--time=")) {
+                iterationMillis = Long.parseLong(arg.substring("--time=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else {
+                filters.add(arg);
+            }
+        }
+
+        registerRendering();
+        registerGameLogic();
+        registerScoreFiles();
+
+        System.out.printf("%-40s %15s %15s%n", "Benchmark", "ops/s", "bytes/op");
+
+        for (int i = 0; i < benchmarks.size(); i++) {
+            if (!filters.isEmpty() && filters.stream().noneMatch(names.get(i)::contains)) {
+                continue;
+            }
+            measure(names.get(i), benchmarks.get(i), iterationMillis, iterations);
+        }
+
+        System.exit(0);
+
+    }
+
+    /**
+     * Warms a benchmark up for one iteration, then measures it and prints the best iteration.
+     */
+    static void measure(String name, Benchmark benchmark, long iterationMillis, int iterations) throws Exception {
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        double bestOpsPerSecond = 0;
+        double bytesPerOp = 0;
+        long operation = 0;
+        long result = 0;
+
+        for (int iteration = 0; iteration <= iterations; iteration++) {
+
+            long ops = 0;
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long end = start + iterationMillis * 1_000_000L;
+            long now;
+
+            do {
+                // The clock is read every 16 operations, so it hardly shows in fast benchmarks:
+                for (int i = 0; i < 16; i++) {
+                    result += benchmark.run(operation++);
+                }
+                ops += 16;
+                now = System.nanoTime();
+            } while (now < end);
+
+            long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            // The first iteration is the warm-up:
+            if (iteration > 0) {
+                double opsPerSecond = ops * 1e9 / (now - start);
+                if (opsPerSecond > bestOpsPerSecond) {
+                    bestOpsPerSecond = opsPerSecond;
+                    bytesPerOp = (double) bytes / ops;
+                }
+            }
+        }
+
+        sink += result;
+        System.out.printf("%-40s %15.1f %15.1f%n", name, bestOpsPerSecond, bytesPerOp);
+
+    }
+
+    static BufferedImage offscreenImage() {
+        return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    static void registerRendering() {
+
+        BufferedImage image = offscreenImage();
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        Water water = new Water(WIDTH, HEIGHT, (int) (HEIGHT * 0.6), 15, 0.03, new Color(0, 240, 240, 70));
+        add("Water.draw (cached)", op -> {
+            water.draw(g2d);
+            return image.getRGB(0, HEIGHT - 1);
+        });
+
+        Water changingWater = new Water(WIDTH, HEIGHT, (int) (HEIGHT * 0.6), 15, 0.03, new Color(0, 240, 240, 70));
+        add("Water.draw (rendered)", op -> {
+            changingWater.setWaves((int) (HEIGHT * 0.6), 15, 0.03 + (op & 1) * 0.001);
+            changingWater.draw(g2d);
+            return image.getRGB(0, HEIGHT - 1);
+        });
+
+        Cloud cloud = new Cloud(WIDTH / 10, 60, 70, new Color(174, 214, 241));
+        add("Cloud.draw", op -> {
+            cloud.draw(g2d);
+            return image.getRGB(WIDTH / 10 + 50, 100);
+        });
+
+        Background cachedBackground = new Background(WIDTH, HEIGHT);
+        add("Background.paintComponent (cached)", op -> {
+            cachedBackground.paintComponent(g2d);
+            return image.getRGB(0, HEIGHT - 100);
+        });
+
+        Background directBackground = new Background(WIDTH, HEIGHT);
+        directBackground.setCached(false);
+        add("Background.paintComponent (direct)", op -> {
+            directBackground.paintComponent(g2d);
+            return image.getRGB(0, HEIGHT - 100);
+        });
+
+        // Rendering the whole layer, at the size of the game and at three times that size:
+        for (int scale : new int[] {1, 3}) {
+            for (boolean parallel : new boolean[] {false, true}) {
+                Background background = new Background(WIDTH * scale, HEIGHT * scale);
+                background.setParallel(parallel);
+                add("Background.renderLayer (" + (parallel ? "stripes" : "Graphics2D") + ", " + scale + "x)",
+                    op -> background.renderLayer(null).getRGB(0, HEIGHT * scale - 100));
+            }
+        }
+
+    }
+
+    static void registerGameLogic() {
+
+        for (int extraFish : new int[] {0, 1000, 10000}) {
+
+            GameConfig config = GameConfig.parse("extra=" + extraFish);
+            GameEngine[] engine = {new GameEngine(WIDTH, config, 1, 2)};
+            add("GameEngine.tick (" + (extraFish + 3) + " fishes)", op -> {
+                if (engine[0].isEnded()) {
+                    engine[0] = new GameEngine(WIDTH, config, op, 2);
+                }
+                if (!engine[0].isBaitOut()) {
+                    engine[0].cast();
+                }
+                engine[0].tick();
+                return engine[0].getTicks();
+            });
+
+            FishStore fishStore = new GameEngine(WIDTH, config, 1, 2).getFishStore();
+            add("FishStore.update (" + (extraFish + 3) + " fishes)", op -> fishStore.update(WIDTH, false));
+            add("FishStore.findFishAt (" + (extraFish + 3) + " fishes)", op -> {
+                int x = (int) (op * 37 % WIDTH);
+                int y = FishStore.LANE_TOP + (int) (op * 13 % (FishStore.LANE_COUNT * FishStore.LANE_SPACING));
+                return fishStore.findFishAt(x, y);
+            });
+        }
+
+        GamePanel gamePanel = new GamePanel(WIDTH, HEIGHT, "Benchmark");
+        gamePanel.stopLoop();
+        add("ScorePanel.updateRods", op -> {
+            gamePanel.scorePanel.updateRods(gamePanel.engine.getRodsLeft());
+            return gamePanel.scorePanel.rodsPanel.getComponentCount();
+        });
+
+    }
+
+    static void registerScoreFiles() throws IOException {
+
+        for (int lines : new int[] {10, 1000, 100000}) {
+
+            File logFile = File.createTempFile("scores", ".log");
+            logFile.deleteOnExit();
+            try (PrintWriter out = new PrintWriter(logFile)) {
+                for (int i = 0; i < lines; i++) {
+                    out.println("player" + i + ": " + (i % 60));
+                }
+            }
+            File leaderboardFile = new File(logFile.getPath() + ".top");
+            leaderboardFile.deleteOnExit();
+            File statsFile = new File(logFile.getPath() + ".players");
+            statsFile.deleteOnExit();
+            ScoreLog scoreLog = new ScoreLog(logFile, null, leaderboardFile, statsFile);
+
+            // What the end of a round costs, the write itself happens on the writer thread:
+            add("ScoreLog.append (" + lines + " lines)", op -> {
+                scoreLog.append("benchmark", (int) (op % 60));
+                if (op % 1000 == 999) {
+                    scoreLog.flush();
+                }
+                return op;
+            });
+
+            // One result written and forced to the disk per operation:
+            add("ScoreLog.append+flush (" + lines + " lines)", op -> {
+                scoreLog.append("benchmark", (int) (op % 60));
+                scoreLog.flush();
+                return logFile.length();
+            });
+
+            add("ScoreLog.readNewest (" + lines + " lines)", op -> scoreLog.readNewest(Leaderboard.DEFAULT_SIZE).size());
+
+            // What the starting screen reads:
+            add("ScoreLog.getTopScores (" + lines + " lines)", op -> scoreLog.getTopScores().size());
+
+            // What the starting screen reads for every change of the name:
+            add("ScoreLog.getPlayerStats (" + lines + " lines)", op -> scoreLog.getPlayerStats("player" + (op % lines)).getGames());
+        }
+
+    }
+
+}
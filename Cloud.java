@@ -2,9 +2,15 @@ import java.awt.*;
 import java.awt.geom.*;
 
 /**
- * The `Cloud` class represents a cloud object that can be drawn on a Graphics2D object.
+ * The `Cloud` class represents a cloud object that can be drawn on a Graphics2D object, or
+ * rasterized into the pixels of a background layer. A cloud is made of four circles.
  */
-public class Cloud implements drawObject<Graphics2D> {
+public class Cloud implements drawObject<Graphics2D>, StripeRasterizer.Layer {
+
+    // The position and the diameter of every circle, relative to the size of the cloud:
+    static final double[] CIRCLE_X = {0.0, 0.35, 1.50, 1.80};
+    static final double[] CIRCLE_Y = {0.0, -0.20, 0.15, 0.05};
+    static final double[] CIRCLE_DIAMETER = {0.90, 1.75, 0.90, 0.30};
 
     private double x;
     private double y;
@@ -36,17 +42,58 @@ public class Cloud implements drawObject<Graphics2D> {
     @Override
     public void draw(Graphics2D g2d) {
 
-        Ellipse2D.Double e1 = new Ellipse2D.Double(x, y, size * 0.90, size * 0.90);
-        Ellipse2D.Double e2 = new Ellipse2D.Double(x + size*0.35, y - size * 0.20, size * 1.75, size * 1.75);
-        Ellipse2D.Double e3 = new Ellipse2D.Double(x + size*1.50, y + size * 0.15, size * 0.90, size * 0.90);
-        Ellipse2D.Double e4 = new Ellipse2D.Double(x + size*1.80, y + size * 0.05, size * 0.30, size * 0.30);
-
         g2d.setColor(color);
 
-        g2d.fill(e1);
-        g2d.fill(e2);
-        g2d.fill(e3);
-        g2d.fill(e4);
+        for (int i = 0; i < CIRCLE_DIAMETER.length; i++) {
+            g2d.fill(new Ellipse2D.Double(x + size * CIRCLE_X[i], y + size * CIRCLE_Y[i],
+                size * CIRCLE_DIAMETER[i], size * CIRCLE_DIAMETER[i]));
+        }
+
+    }
+
+    /**
+     * Blends the cloud over the pixels of the specified rows. The circles are combined the way
+     * filling them one after the other with the same color would.
+     */
+    @Override
+    public void rasterize(int[] pixels, int width, int fromRow, int toRow) {
+
+        // The bounds of the cloud, with a pixel of margin for the soft edges:
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < CIRCLE_DIAMETER.length; i++) {
+            minX = Math.min(minX, x + size * CIRCLE_X[i]);
+            maxX = Math.max(maxX, x + size * (CIRCLE_X[i] + CIRCLE_DIAMETER[i]));
+            minY = Math.min(minY, y + size * CIRCLE_Y[i]);
+            maxY = Math.max(maxY, y + size * (CIRCLE_Y[i] + CIRCLE_DIAMETER[i]));
+        }
+        int top = Math.max(fromRow, (int) Math.floor(minY) - 1);
+        int bottom = Math.min(toRow, (int) Math.ceil(maxY) + 1);
+        int left = Math.max(0, (int) Math.floor(minX) - 1);
+        int right = Math.min(width, (int) Math.ceil(maxX) + 1);
+        if (top >= bottom || left >= right) {
+            return;
+        }
+
+        int rgb = color.getRGB() & 0xFFFFFF;
+        double opacity = color.getAlpha() / 255.0;
+
+        for (int row = top; row < bottom; row++) {
+            for (int column = left; column < right; column++) {
+
+                double uncovered = 1.0;
+                for (int i = 0; i < CIRCLE_DIAMETER.length; i++) {
+                    double radius = size * CIRCLE_DIAMETER[i] / 2;
+                    double centerX = x + size * CIRCLE_X[i] + radius;
+                    double centerY = y + size * CIRCLE_Y[i] + radius;
+                    uncovered *= 1.0 - StripeRasterizer.circleCoverage(centerX, centerY, radius, column, row);
+                }
+
+                StripeRasterizer.blend(pixels, row * width + column, rgb, (1.0 - uncovered) * opacity);
+            }
+        }
 
     }
     
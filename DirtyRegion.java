@@ -0,0 +1,83 @@
+import javax.swing.JComponent;
+
+/**
+ * The `DirtyRegion` class collects the damaged areas of a component during one frame
+ * and repaints only their union instead of the whole component.
+ */
+public class DirtyRegion {
+
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+    private boolean empty = true;
+
+    /**
+     * Marks the specified rectangle as damaged.
+     *
+     * @param x      The x-coordinate of the rectangle.
+     * @param y      The y-coordinate of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    public void add(int x, int y, int width, int height) {
+
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        if (empty) {
+            minX = x;
+            minY = y;
+            maxX = x + width;
+            maxY = y + height;
+            empty = false;
+        } else {
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x + width);
+            maxY = Math.max(maxY, y + height);
+        }
+
+    }
+
+    /**
+     * Marks the current bounds of the specified component as damaged.
+     *
+     * @param component The component whose bounds are damaged.
+     */
+    public void add(JComponent component) {
+        add(component.getX(), component.getY(), component.getWidth(), component.getHeight());
+    }
+
+    /**
+     * Checks if nothing was damaged since the last flush.
+     *
+     * @return True if there is nothing to repaint.
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Repaints the union of all damaged areas on the specified component and clears the region.
+     *
+     * @param component The component to repaint.
+     */
+    public void flush(JComponent component) {
+
+        if (!empty) {
+            component.repaint(minX, minY, maxX - minX, maxY - minY);
+        }
+        clear();
+
+    }
+
+    /**
+     * Forgets all damaged areas.
+     */
+    public void clear() {
+        empty = true;
+    }
+
+}
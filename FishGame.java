@@ -1,48 +1,110 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
 import javax.swing.SwingUtilities;
 
 /**
- * The FishGame class represents a simple class in which the starting screen and a main frame. 
+ * The FishGame class opens the window of the game, which shows the starting screen first.
  * This is the class that should be run to start the game.
  */
 public class FishGame {
 
-    private StartingScreenFrame startingScreenFrame;
+    // The way every new game is driven, chosen at startup:
+    static LoopMode loopMode = LoopMode.parse(System.getProperty("fishgame.loop", "timer"));
+
+    // The rules of every new game, chosen at startup:
+    static GameConfig gameConfig = GameConfig.DEFAULT;
+
+    // The file the rounds are recorded to, numbered by round, or null to not record rounds:
+    static File recordFile;
+
+    // The shared leaderboard the scores are sent to and read from, or null to only keep them locally:
+    static LeaderboardClient leaderboardClient;
+
     /**
-     * Creates the StartingScreenFrame.
+     * Creates the window of the game, showing the starting screen.
      */
     public FishGame() {
-        startingScreenFrame = new StartingScreenFrame(this);
-        startingScreenFrame.setVisible(true);
+        new MainFrame(1280, 920);
     }
 
     /**
-     * Opens the MainFrame and disposes of the StartingScreenFrame.
+     * Prints a step of the startup with the time since the JVM started.
      *
-     * @param playerName The name of the player.
+     * @param step What was done.
      */
-    public void openMainFrame(String playerName) {
-
-        startingScreenFrame.dispose(); // Close the StartingScreenFrame
-        SwingUtilities.invokeLater(new Runnable() {
-            public void run() {
-                new MainFrame(1280, 920, playerName);
-            }
-        });
+    static void logStartup(String step) {
+        System.out.println("[startup] " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms: " + step);
     }
 
     /**
      * The main entry point for the FishGame application. Creates a new instance of FishGame and runs the game.
      */
     public static void run() {
-        new FishGame();
+        SwingUtilities.invokeLater(FishGame::new);
     }
 
     /**
      * The main method that starts the FishGame application.
      *
-     * @param args Command-line arguments (not used in this application).
+     * @param args Command-line arguments, "--loop=active" renders the game on its own thread
+     *             and "--loop=timer" (the default) lets Swing repaint it. "--stress=N"
+     *             adds N extra fishes to every round and reports the simulation speed.
+     *             "--config=time=30000,rods=3" changes the rules, see GameConfig.
+     *             "--record=FILE" records every round to its own file, FILE numbered by
+     *             the round (e.g. round-1.rec), and "--replay=FILE" plays a recorded round
+     *             again in real time. "--leaderboard=http://HOST:PORT"
+     *             shares the scores through a LeaderboardServer and "--serve-leaderboard=PORT"
+     *             runs one on this machine for the local scores.
      */
     public static void main(String[] args) {
+        File replayFile = null;
+        int servePort = -1;
+        for (String arg : args) {
+            if (arg.startsWith("--loop=")) {
+                loopMode = LoopMode.parse(arg.substring("--loop=".length()));
+            }
+            if (arg.startsWith("--config=")) {
+                gameConfig = GameConfig.parse(arg.substring("--config=".length()));
+            }
+            if (arg.startsWith("--record=")) {
+                recordFile = new File(arg.substring("--record=".length()));
+            }
+            if (arg.startsWith("--replay=")) {
+                replayFile = new File(arg.substring("--replay=".length()));
+            }
+            if (arg.startsWith("--stress=")) {
+                System.setProperty("fishgame.stress", arg.substring("--stress=".length()));
+            }
+            if (arg.startsWith("--leaderboard=")) {
+                leaderboardClient = new LeaderboardClient(arg.substring("--leaderboard=".length()));
+            }
+            if (arg.startsWith("--serve-leaderboard=")) {
+                servePort = Integer.parseInt(arg.substring("--serve-leaderboard=".length()));
+            }
+        }
+
+        if (servePort >= 0) {
+            try {
+                LeaderboardServer server = new LeaderboardServer(new InetSocketAddress(servePort), ScoreLog.getDefault(), 2);
+                server.start();
+                System.out.println("Sharing the leaderboard on port " + server.getPort());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (replayFile != null) {
+            try {
+                Recording replay = Recording.read(replayFile);
+                SwingUtilities.invokeLater(() -> new MainFrame(1280, 920, replay));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
         run();
     }
 }
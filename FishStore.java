@@ -0,0 +1,270 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The `FishStore` class keeps every fish of a round in primitive arrays (position, velocity,
+ * lane and sprite), so thousands of fishes can be moved in one tight loop without creating
+ * any objects. A LaneIndex is kept up to date while the fishes move, so finding the fish at
+ * a point does not depend on the number of fishes. Drawing the fishes is left to the renderer.
+ */
+public class FishStore {
+
+    static final int LANE_COUNT = 3;
+    static final int LANE_TOP = 520;
+    static final int LANE_SPACING = 120;
+
+    static final int FISH_WIDTH = 100;
+    static final int FISH_HEIGHT = 80;
+
+    // Fishes that swim out of the screen or are caught start again from here:
+    static final int SPAWN_X = -150;
+
+    private int count;
+    private int[] x;
+    private int[] previousX;
+    private double[] velocity;
+    private int[] lane;
+    private int[] sprite;
+
+    // Leftmost and rightmost pixel touched in every lane during the last update:
+    private final int[] dirtyMinX = new int[LANE_COUNT];
+    private final int[] dirtyMaxX = new int[LANE_COUNT];
+
+    private final LaneIndex index;
+
+    /**
+     * Constructs a new FishStore.
+     *
+     * @param capacity    The number of fishes the store can hold before it has to grow.
+     * @param windowWidth The width of the window the fishes swim across.
+     */
+    public FishStore(int capacity, int windowWidth) {
+
+        capacity = Math.max(capacity, 1);
+        x = new int[capacity];
+        previousX = new int[capacity];
+        velocity = new double[capacity];
+        lane = new int[capacity];
+        sprite = new int[capacity];
+        index = new LaneIndex(capacity, SPAWN_X, windowWidth + FISH_WIDTH);
+        clearDirty();
+
+    }
+
+    /**
+     * Adds a fish to the store.
+     *
+     * @param fishX    The x-coordinate of the fish.
+     * @param fishLane The lane of the fish, 0 being the top one.
+     * @param fishVelocity The distance the fish swims on every tick.
+     * @param fishSprite The id of the image used for the fish.
+     * @return The index of the new fish.
+     */
+    public int add(int fishX, int fishLane, double fishVelocity, int fishSprite) {
+
+        if (count == x.length) {
+            int capacity = x.length * 2;
+            x = Arrays.copyOf(x, capacity);
+            previousX = Arrays.copyOf(previousX, capacity);
+            velocity = Arrays.copyOf(velocity, capacity);
+            lane = Arrays.copyOf(lane, capacity);
+            sprite = Arrays.copyOf(sprite, capacity);
+            index.grow(capacity);
+        }
+
+        x[count] = fishX;
+        previousX[count] = fishX;
+        velocity[count] = fishVelocity;
+        lane[count] = fishLane;
+        sprite[count] = fishSprite;
+        index.insert(count, fishLane, fishX);
+        return count++;
+
+    }
+
+    /**
+     * Adds the specified number of fishes at random positions in every lane.
+     *
+     * @param amount      The number of fishes to add.
+     * @param windowWidth The width of the window.
+     * @param velocities  The starting velocity for every lane.
+     * @param spriteCount The number of fish images.
+     * @param random      The source of the random positions.
+     */
+    public void spawn(int amount, int windowWidth, double[] velocities, int spriteCount, Random random) {
+
+        for (int i = 0; i < amount; i++) {
+            int fishLane = random.nextInt(LANE_COUNT);
+            add(SPAWN_X + random.nextInt(windowWidth - SPAWN_X), fishLane, velocities[fishLane], random.nextInt(spriteCount));
+        }
+
+    }
+
+    /**
+     * Removes every fish from the store.
+     */
+    public void clear() {
+        count = 0;
+        index.clear();
+        clearDirty();
+    }
+
+    /**
+     * Moves every fish by its velocity. Fishes that swam out of the screen start again on the left.
+     *
+     * @param windowWidth The width of the window.
+     * @param speedUp     True if every fish should swim faster from now on.
+     * @return The number of fishes that swam out of the screen.
+     */
+    public int update(int windowWidth, boolean speedUp) {
+
+        int escaped = 0;
+        int limit = windowWidth + FISH_WIDTH;
+        double speedIncrease = speedUp ? 1 : 0;
+
+        clearDirty();
+
+        for (int i = 0; i < count; i++) {
+
+            int fishX = x[i];
+            previousX[i] = fishX;
+
+            if (fishX >= limit) {
+                fishX = SPAWN_X;
+                escaped++;
+            }
+
+            velocity[i] += speedIncrease;
+            int newX = (int) (fishX + velocity[i]);
+            x[i] = newX;
+
+            int fishLane = lane[i];
+            index.move(i, fishLane, newX);
+            dirtyMinX[fishLane] = Math.min(dirtyMinX[fishLane], Math.min(previousX[i], newX));
+            dirtyMaxX[fishLane] = Math.max(dirtyMaxX[fishLane], Math.max(previousX[i], newX) + FISH_WIDTH);
+
+        }
+
+        return escaped;
+
+    }
+
+    /**
+     * Sends the specified fish back to the start of its lane.
+     *
+     * @param index The index of the fish.
+     */
+    public void respawn(int fish) {
+        x[fish] = SPAWN_X;
+        index.move(fish, lane[fish], SPAWN_X);
+    }
+
+    /**
+     * Finds a fish whose bounds contain the specified point, for example the end of a bait line.
+     * Only the two grid cells the fish could start in are searched.
+     *
+     * @param pointX The x-coordinate of the point.
+     * @param pointY The y-coordinate of the point.
+     * @return The index of the fish, or -1 if there is no fish at the point.
+     */
+    public int findFishAt(int pointX, int pointY) {
+
+        int fishLane = laneAt(pointY);
+        if (fishLane < 0) {
+            return -1;
+        }
+
+        int lastColumn = index.column(pointX);
+        for (int column = index.column(pointX - FISH_WIDTH); column <= lastColumn; column++) {
+            for (int fish = index.first(fishLane, column); fish >= 0; fish = index.next(fish)) {
+                if (x[fish] <= pointX && x[fish] + FISH_WIDTH >= pointX) {
+                    return fish;
+                }
+            }
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Returns the lane whose fishes cover the specified y-coordinate.
+     *
+     * @param y The y-coordinate.
+     * @return The lane, or -1 if the y-coordinate is between or outside of the lanes.
+     */
+    public static int laneAt(int y) {
+
+        int fishLane = Math.floorDiv(y - LANE_TOP, LANE_SPACING);
+        if (fishLane < 0 || fishLane >= LANE_COUNT || y > laneY(fishLane) + FISH_HEIGHT) {
+            return -1;
+        }
+        return fishLane;
+
+    }
+
+    /**
+     * Returns the y-coordinate of the top of the specified lane.
+     *
+     * @param fishLane The lane.
+     * @return The y-coordinate of the lane.
+     */
+    public static int laneY(int fishLane) {
+        return LANE_TOP + fishLane * LANE_SPACING;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int index) {
+        return x[index];
+    }
+
+    public int getPreviousX(int index) {
+        return previousX[index];
+    }
+
+    public int getY(int index) {
+        return laneY(lane[index]);
+    }
+
+    public double getVelocity(int index) {
+        return velocity[index];
+    }
+
+    public int getLane(int index) {
+        return lane[index];
+    }
+
+    public int getSprite(int index) {
+        return sprite[index];
+    }
+
+    /**
+     * Returns the leftmost pixel of the specified lane that changed during the last update.
+     *
+     * @param fishLane The lane.
+     * @return The x-coordinate, or Integer.MAX_VALUE if nothing changed in the lane.
+     */
+    public int getDirtyMinX(int fishLane) {
+        return dirtyMinX[fishLane];
+    }
+
+    /**
+     * Returns the pixel right after the rightmost pixel of the specified lane that changed
+     * during the last update.
+     *
+     * @param fishLane The lane.
+     * @return The x-coordinate, or Integer.MIN_VALUE if nothing changed in the lane.
+     */
+    public int getDirtyMaxX(int fishLane) {
+        return dirtyMaxX[fishLane];
+    }
+
+    private void clearDirty() {
+        Arrays.fill(dirtyMinX, Integer.MAX_VALUE);
+        Arrays.fill(dirtyMaxX, Integer.MIN_VALUE);
+    }
+
+}
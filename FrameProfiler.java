@@ -0,0 +1,275 @@
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * The `FrameProfiler` class measures where the time of every frame goes. The durations of the
+ * phases (simulation, background, sprites, HUD and the rest of Swing's painting) are counted in
+ * fixed-size histograms, so measuring creates no objects. The profiler can draw an overlay with
+ * the frame rate and the p50, p99 and max time of every phase, and write its histograms to a
+ * CSV file.
+ *
+ * The simulation thread and the painting threads measure at the same time, so the methods that
+ * count or read the histograms are synchronized.
+ */
+public class FrameProfiler {
+
+    static final int SIMULATION = 0;
+    static final int BACKGROUND = 1;
+    static final int SPRITES = 2;
+    static final int HUD = 3;
+    static final int SWING = 4;
+
+    static final String[] PHASE_NAMES = {"simulation", "background", "sprites", "hud", "swing"};
+
+    // The overlay text is refreshed this often, so drawing it does not cost much:
+    static final long OVERLAY_REFRESH_NANOS = 250_000_000L;
+
+    private final Histogram[] phases = new Histogram[PHASE_NAMES.length];
+    private final Histogram frameIntervals = new Histogram();
+
+    private volatile boolean enabled;
+
+    // Time of the background and sprite phases measured during the current frame:
+    private long measuredInFrame;
+
+    private long lastFrame;
+    private long framesInSecond;
+    private long secondStart;
+    private double framesPerSecond;
+
+    private final String[] overlayLines = new String[PHASE_NAMES.length + 1];
+    private long overlayRefreshed;
+
+    /**
+     * Constructs a new FrameProfiler.
+     *
+     * @param enabled True to start measuring right away.
+     */
+    public FrameProfiler(boolean enabled) {
+
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new Histogram();
+        }
+        this.enabled = enabled;
+
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the profiler and its overlay on or off. Turning it on starts a new session.
+     *
+     * @param enabled True to turn the profiler on.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+
+        if (enabled && !this.enabled) {
+            reset();
+        }
+        this.enabled = enabled;
+
+    }
+
+    /**
+     * Removes every measurement.
+     */
+    public synchronized void reset() {
+
+        for (Histogram phase : phases) {
+            phase.reset();
+        }
+        frameIntervals.reset();
+        lastFrame = 0;
+        secondStart = 0;
+        framesInSecond = 0;
+        framesPerSecond = 0;
+        overlayRefreshed = 0;
+
+    }
+
+    /**
+     * Returns the start time of a phase, or 0 if the profiler is off.
+     *
+     * @return The current time in nanoseconds.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Counts the time passed since the start of a phase.
+     *
+     * @param phase The phase.
+     * @param start The value returned by start().
+     * @return The time counted in nanoseconds, 0 if the profiler is off.
+     */
+    public long end(int phase, long start) {
+
+        if (!enabled || start == 0) {
+            return 0;
+        }
+
+        long duration = System.nanoTime() - start;
+        record(phase, duration);
+        return duration;
+
+    }
+
+    /**
+     * Counts a duration measured by the caller.
+     *
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public synchronized void record(int phase, long nanos) {
+
+        if (!enabled) {
+            return;
+        }
+
+        phases[phase].record(nanos);
+        if (phase == BACKGROUND || phase == SPRITES) {
+            measuredInFrame += nanos;
+        }
+
+    }
+
+    /**
+     * Marks the start of painting a frame.
+     *
+     * @return The start time of the frame, or 0 if the profiler is off.
+     */
+    public synchronized long startFrame() {
+        measuredInFrame = 0;
+        return start();
+    }
+
+    /**
+     * Marks the end of painting a frame. The time that was not spent on the background or the
+     * sprites is counted as Swing overhead.
+     *
+     * @param start The value returned by startFrame().
+     */
+    public synchronized void endFrame(long start) {
+
+        if (!enabled || start == 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        phases[SWING].record(now - start - measuredInFrame);
+
+        if (lastFrame != 0) {
+            frameIntervals.record(now - lastFrame);
+        }
+        lastFrame = now;
+
+        framesInSecond++;
+        if (secondStart == 0) {
+            secondStart = now;
+        } else if (now - secondStart >= 1_000_000_000L) {
+            framesPerSecond = framesInSecond * 1e9 / (now - secondStart);
+            framesInSecond = 0;
+            secondStart = now;
+        }
+
+    }
+
+    /**
+     * Returns the histogram of a phase.
+     *
+     * @param phase The phase.
+     * @return The histogram.
+     */
+    public Histogram getPhase(int phase) {
+        return phases[phase];
+    }
+
+    /**
+     * Draws the overlay with the frame rate and the timings of every phase.
+     *
+     * @param g2d The Graphics2D object used for drawing.
+     * @param x The x-coordinate of the overlay.
+     * @param y The y-coordinate of the overlay.
+     */
+    public synchronized void drawOverlay(Graphics2D g2d, int x, int y) {
+
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (overlayLines[0] == null || now - overlayRefreshed >= OVERLAY_REFRESH_NANOS) {
+            overlayRefreshed = now;
+            overlayLines[0] = String.format("FPS %.1f   frame p50 %.1f  p99 %.1f ms", framesPerSecond,
+                frameIntervals.percentile(0.5) / 1e6, frameIntervals.percentile(0.99) / 1e6);
+            for (int i = 0; i < phases.length; i++) {
+                overlayLines[i + 1] = String.format("%-10s p50 %6.2f  p99 %6.2f  max %6.2f ms", PHASE_NAMES[i],
+                    phases[i].percentile(0.5) / 1e6, phases[i].percentile(0.99) / 1e6, phases[i].getMax() / 1e6);
+            }
+        }
+
+        g2d.setColor(OVERLAY_BACKGROUND);
+        g2d.fillRect(x, y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(OVERLAY_FONT);
+        for (int i = 0; i < overlayLines.length; i++) {
+            g2d.drawString(overlayLines[i], x + 8, y + 18 + i * 16);
+        }
+
+    }
+
+    static final int OVERLAY_WIDTH = 380;
+    static final int OVERLAY_HEIGHT = 108;
+    static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+    static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    /**
+     * Writes the histograms of the session to a CSV file: a summary row for every phase,
+     * followed by the non-empty buckets.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public synchronized void writeCsv(File file) throws IOException {
+
+        try (PrintWriter out = new PrintWriter(file)) {
+
+            out.println("phase,count,mean_us,p50_us,p90_us,p99_us,max_us");
+            writeSummary(out, "frame_interval", frameIntervals);
+            for (int i = 0; i < phases.length; i++) {
+                writeSummary(out, PHASE_NAMES[i], phases[i]);
+            }
+
+            out.println();
+            out.println("phase,bucket_from_ns,bucket_to_ns,count");
+            writeBuckets(out, "frame_interval", frameIntervals);
+            for (int i = 0; i < phases.length; i++) {
+                writeBuckets(out, PHASE_NAMES[i], phases[i]);
+            }
+        }
+
+    }
+
+    private static void writeSummary(PrintWriter out, String name, Histogram histogram) {
+        out.printf("%s,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n", name, histogram.getCount(), histogram.getMean() / 1e3,
+            histogram.percentile(0.5) / 1e3, histogram.percentile(0.9) / 1e3, histogram.percentile(0.99) / 1e3,
+            histogram.getMax() / 1e3);
+    }
+
+    private static void writeBuckets(PrintWriter out, String name, Histogram histogram) {
+
+        for (int bucket = 0; bucket < Histogram.BUCKETS; bucket++) {
+            long count = histogram.getBucketCount(bucket);
+            if (count > 0) {
+                out.printf("%s,%d,%d,%d%n", name, Histogram.lowerBound(bucket), Histogram.upperBound(bucket), count);
+            }
+        }
+
+    }
+
+}
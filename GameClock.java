@@ -0,0 +1,140 @@
+/**
+ * The `GameClock` class measures how many fixed ticks of game time are due, based on the
+ * monotonic System.nanoTime clock instead of assuming that every timer event arrives on time.
+ * Late ticks are caught up, up to a limit. Time beyond that limit is dropped and shows up as
+ * drift between the wall time and the game time.
+ */
+public class GameClock {
+
+    static final int TICK_MILLIS = 25;
+    static final long TICK_NANOS = TICK_MILLIS * 1_000_000L;
+
+    // A tick that is due within this margin is run now rather than on the next event:
+    static final long TOLERANCE_NANOS = 2_000_000L;
+
+    private final int maxCatchUpTicks;
+
+    private long startTime;
+    private long lastTime;
+    private long lag;
+
+    // Statistics for the report:
+    private long ticks;
+    private long catchUpTicks;
+    private long droppedNanos;
+    private long maxDelayNanos;
+
+    /**
+     * Constructs a new GameClock.
+     *
+     * @param maxCatchUpTicks The most ticks that are run at once after a stall.
+     */
+    public GameClock(int maxCatchUpTicks) {
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        start();
+    }
+
+    /**
+     * Starts measuring the time from now on and clears the statistics.
+     */
+    public void start() {
+
+        startTime = System.nanoTime();
+        lastTime = startTime;
+        lag = 0;
+        ticks = 0;
+        catchUpTicks = 0;
+        droppedNanos = 0;
+        maxDelayNanos = 0;
+
+    }
+
+    /**
+     * Measures the time passed since the previous call and returns how many ticks are due.
+     *
+     * @return The number of ticks the game has to be advanced by.
+     */
+    public int advance() {
+
+        long now = System.nanoTime();
+        long delay = now - lastTime;
+        lastTime = now;
+        lag += delay;
+        maxDelayNanos = Math.max(maxDelayNanos, delay);
+
+        long due = (lag + TOLERANCE_NANOS) / TICK_NANOS;
+
+        if (due > maxCatchUpTicks) {
+            // The host is too slow to catch up, so this time is lost for the game:
+            droppedNanos += (due - maxCatchUpTicks) * TICK_NANOS;
+            lag -= (due - maxCatchUpTicks) * TICK_NANOS;
+            due = maxCatchUpTicks;
+        }
+
+        lag -= due * TICK_NANOS;
+        ticks += due;
+        if (due > 1) {
+            catchUpTicks += due - 1;
+        }
+
+        return (int) due;
+
+    }
+
+    /**
+     * Returns how far the current moment is between the last tick and the next one.
+     *
+     * @return A value between 0 and 1.
+     */
+    public double getAlpha() {
+        return Math.max(0.0, Math.min(1.0, (double) lag / TICK_NANOS));
+    }
+
+    /**
+     * Returns how long after the last call of advance the next tick is due.
+     *
+     * @return The time in nanoseconds, 0 if a tick is due already.
+     */
+    public long getNanosUntilNextTick() {
+        return Math.max(0, TICK_NANOS - TOLERANCE_NANOS - lag);
+    }
+
+    /**
+     * Returns the time the game was advanced by.
+     *
+     * @return The game time in milliseconds.
+     */
+    public long getGameTimeMillis() {
+        return ticks * TICK_MILLIS;
+    }
+
+    /**
+     * Returns the real time passed between the start and the last call of advance.
+     *
+     * @return The wall time in milliseconds.
+     */
+    public long getWallTimeMillis() {
+        return (lastTime - startTime) / 1_000_000L;
+    }
+
+    /**
+     * Returns how far the game time is behind the wall time.
+     *
+     * @return The drift in milliseconds.
+     */
+    public long getDriftMillis() {
+        return getWallTimeMillis() - getGameTimeMillis();
+    }
+
+    /**
+     * Describes the game time, the wall time and the stalls of the round.
+     *
+     * @return A single line report.
+     */
+    public String report() {
+        return String.format("Game time: %d ms, wall time: %d ms, drift: %d ms, dropped: %d ms, catch-up ticks: %d, longest stall: %d ms",
+            getGameTimeMillis(), getWallTimeMillis(), getDriftMillis(), droppedNanos / 1_000_000L,
+            catchUpTicks, maxDelayNanos / 1_000_000L);
+    }
+
+}
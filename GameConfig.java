@@ -0,0 +1,168 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The `GameConfig` class holds the tunable rules of a round: its length, the number of baits,
+ * the starting velocity of the fishes in every lane, how often the fishes speed up and how
+ * many extra fishes are added. A configuration can be written as a single line, for example
+ * "time=60000,rods=5,velocities=4/3/2,speedup=400,extra=0".
+ */
+public final class GameConfig {
+
+    /**
+     * The rules of a normal round.
+     */
+    public static final GameConfig DEFAULT = new GameConfig(60000, 5, new double[] {4, 3, 2}, 400, 0);
+
+    private final int totalTime;
+    private final int rods;
+    private final double[] laneVelocities;
+    private final int speedUpTicks;
+    private final int extraFish;
+
+    /**
+     * Constructs a new GameConfig.
+     *
+     * @param totalTime      The length of a round in milliseconds.
+     * @param rods           The number of baits the player starts with.
+     * @param laneVelocities The starting velocity of the fishes in every lane, top lane first.
+     * @param speedUpTicks   The number of ticks after which every fish swims faster by 1.
+     * @param extraFish      The number of fishes added at random positions to the normal three.
+     */
+    public GameConfig(int totalTime, int rods, double[] laneVelocities, int speedUpTicks, int extraFish) {
+
+        if (totalTime <= 0 || rods <= 0 || speedUpTicks <= 0 || extraFish < 0
+                || laneVelocities.length != FishStore.LANE_COUNT) {
+            throw new IllegalArgumentException("Invalid game configuration");
+        }
+
+        this.totalTime = totalTime;
+        this.rods = rods;
+        this.laneVelocities = laneVelocities.clone();
+        this.speedUpTicks = speedUpTicks;
+        this.extraFish = extraFish;
+
+    }
+
+    /**
+     * Reads a configuration from a single line. Keys that are left out keep their default value.
+     *
+     * @param text The configuration, for example "time=30000,rods=3".
+     * @return The configuration.
+     * @throws IllegalArgumentException If the line cannot be read.
+     */
+    public static GameConfig parse(String text) {
+
+        int totalTime = DEFAULT.totalTime;
+        int rods = DEFAULT.rods;
+        double[] laneVelocities = DEFAULT.laneVelocities.clone();
+        int speedUpTicks = DEFAULT.speedUpTicks;
+        int extraFish = DEFAULT.extraFish;
+
+        for (String part : text.split(",")) {
+
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+
+            int separator = part.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + part);
+            }
+            String key = part.substring(0, separator).trim();
+            String value = part.substring(separator + 1).trim();
+
+            try {
+                switch (key) {
+                    case "time":
+                        totalTime = Integer.parseInt(value);
+                        break;
+                    case "rods":
+                        rods = Integer.parseInt(value);
+                        break;
+                    case "velocities":
+                        String[] velocities = value.split("/");
+                        if (velocities.length != FishStore.LANE_COUNT) {
+                            throw new IllegalArgumentException("Expected " + FishStore.LANE_COUNT + " velocities: " + value);
+                        }
+                        for (int i = 0; i < velocities.length; i++) {
+                            laneVelocities[i] = Double.parseDouble(velocities[i]);
+                        }
+                        break;
+                    case "speedup":
+                        speedUpTicks = Integer.parseInt(value);
+                        break;
+                    case "extra":
+                        extraFish = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown key: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + key + ": " + value, e);
+            }
+
+        }
+
+        return new GameConfig(totalTime, rods, laneVelocities, speedUpTicks, extraFish);
+
+    }
+
+    public int getTotalTime() {
+        return totalTime;
+    }
+
+    public int getRods() {
+        return rods;
+    }
+
+    public double getLaneVelocity(int lane) {
+        return laneVelocities[lane];
+    }
+
+    public double[] getLaneVelocities() {
+        return laneVelocities.clone();
+    }
+
+    public int getSpeedUpTicks() {
+        return speedUpTicks;
+    }
+
+    public int getExtraFish() {
+        return extraFish;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (!(other instanceof GameConfig)) {
+            return false;
+        }
+        GameConfig config = (GameConfig) other;
+        return totalTime == config.totalTime && rods == config.rods && speedUpTicks == config.speedUpTicks
+            && extraFish == config.extraFish && Arrays.equals(laneVelocities, config.laneVelocities);
+
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(totalTime, rods, speedUpTicks, extraFish) * 31 + Arrays.hashCode(laneVelocities);
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder velocities = new StringBuilder();
+        for (int i = 0; i < laneVelocities.length; i++) {
+            if (i > 0) {
+                velocities.append('/');
+            }
+            double velocity = laneVelocities[i];
+            velocities.append(velocity == Math.rint(velocity) ? String.valueOf((long) velocity) : String.valueOf(velocity));
+        }
+        return "time=" + totalTime + ",rods=" + rods + ",velocities=" + velocities + ",speedup=" + speedUpTicks + ",extra=" + extraFish;
+
+    }
+
+}
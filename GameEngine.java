@@ -0,0 +1,600 @@
+import java.util.Random;
+
+/**
+ * The `GameEngine` class holds the whole state and all of the rules of a round: the fishes,
+ * the boat, the bait, the score, the baits left and the time. It does not use Swing or AWT,
+ * so a round can be played without a display, for example by tests, bots or balancing tools.
+ *
+ * The engine is advanced in fixed ticks of 25 ms. Inputs (moving the boat and casting the bait)
+ * are applied immediately, in between two ticks. The boat either moves a whole step per input,
+ * or glides a few pixels on every tick while a direction is held. A renderer can follow the
+ * round through the getters and a Listener.
+ */
+public class GameEngine {
+
+    static final int TICK_MILLIS = GameClock.TICK_MILLIS;
+
+    // Variables of the boat and the bait:
+    static final int BOAT_START_X = 550;
+    static final int BOAT_Y = 325;
+    static final int BOAT_WIDTH = 200;
+    static final int BOAT_HEIGHT = 150;
+    static final int BOAT_STEP = 50;
+    // The distance the boat glides per tick while a direction is held, 400 pixels per second:
+    static final int BOAT_SPEED = 10;
+    static final int ROD_DROP = 15;
+    static final int BAIT_LOST_Y = 940;
+
+    // Codes of the inputs, used by recordings:
+    static final int INPUT_LEFT = 1;
+    static final int INPUT_RIGHT = 2;
+    static final int INPUT_PULL = 3;
+    static final int INPUT_CAST = 4;
+    static final int INPUT_LEFT_DOWN = 5;
+    static final int INPUT_LEFT_UP = 6;
+    static final int INPUT_RIGHT_DOWN = 7;
+    static final int INPUT_RIGHT_UP = 8;
+
+    /**
+     * The `Listener` interface is notified about the events of a round. All methods are
+     * called on the thread that advances the engine.
+     */
+    public interface Listener {
+
+        default void timeChanged(int secondsLeft) {}
+
+        default void scoreChanged(int playerScore, int fishCount) {}
+
+        default void rodsChanged(int rodsLeft) {}
+
+        default void fishCaught(int fish) {}
+
+        default void gameEnded(boolean timeUp) {}
+
+    }
+
+    private static final Listener NO_LISTENER = new Listener() {};
+
+    private final int windowWidth;
+    private final GameConfig config;
+    private final FishStore fishStore;
+    private final Random random = new Random();
+    private final int spriteCount;
+    private Listener listener = NO_LISTENER;
+    private Recording recording;
+
+    // Variables of the player:
+    private int playerScore;
+    private int fishCount;
+    private int rodsLeft;
+
+    // Variables of the time:
+    private int ticks;
+    private int timeLeft;
+    private int secondsShown;
+    private long pendingMillis;
+    private boolean ended;
+
+    // Variables of the boat:
+    private int boatX;
+    private boolean facingLeft;
+    private boolean holdingLeft;
+    private boolean holdingRight;
+    // Set by a press and cleared by the next tick, so a press and release within one tick still moves:
+    private boolean pressedLeft;
+    private boolean pressedRight;
+
+    // Variables of the bait:
+    private boolean baitOut;
+    private int rodX;
+    private int rodY;
+    private int previousRodY;
+
+    /**
+     * Constructs a new GameEngine with the rules and the three fishes of a normal round.
+     *
+     * @param windowWidth The width of the window the round is played in.
+     */
+    public GameEngine(int windowWidth) {
+        this(windowWidth, GameConfig.DEFAULT, 0L, 2);
+    }
+
+    /**
+     * Constructs a new GameEngine.
+     *
+     * @param windowWidth The width of the window the round is played in.
+     * @param config      The rules of the round.
+     * @param seed        The seed of the random positions of the extra fishes.
+     * @param spriteCount The number of different fish images.
+     */
+    public GameEngine(int windowWidth, GameConfig config, long seed, int spriteCount) {
+
+        this.windowWidth = windowWidth;
+        this.config = config;
+        this.spriteCount = spriteCount;
+
+        fishStore = new FishStore(3 + config.getExtraFish(), windowWidth);
+        reset(seed);
+
+    }
+
+    /**
+     * Starts the round over with the same rules, reusing the fish store. The engine ends up in
+     * the same state as a new engine constructed with the same seed.
+     *
+     * @param seed The seed of the random positions of the extra fishes.
+     */
+    public void reset(long seed) {
+
+        double[] laneVelocities = config.getLaneVelocities();
+        fishStore.clear();
+        fishStore.add(0, 0, laneVelocities[0], 0);
+        fishStore.add(0, 1, laneVelocities[1], 1 % spriteCount);
+        fishStore.add(0, 2, laneVelocities[2], 0);
+        random.setSeed(seed);
+        fishStore.spawn(config.getExtraFish(), windowWidth, laneVelocities, spriteCount, random);
+
+        playerScore = 0;
+        fishCount = 0;
+        rodsLeft = config.getRods();
+        ticks = 0;
+        timeLeft = config.getTotalTime();
+        secondsShown = config.getTotalTime() / 1000;
+        pendingMillis = 0;
+        ended = false;
+
+        boatX = BOAT_START_X;
+        facingLeft = false;
+        holdingLeft = false;
+        holdingRight = false;
+        pressedLeft = false;
+        pressedRight = false;
+        baitOut = false;
+        rodX = boatX + BOAT_WIDTH - 10;
+        rodY = getRodTopY();
+        previousRodY = rodY;
+
+    }
+
+    /**
+     * Sets the listener that is notified about the events of the round.
+     *
+     * @param listener The listener, or null to remove it.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener != null ? listener : NO_LISTENER;
+    }
+
+    /**
+     * Sets the recording every input is added to.
+     *
+     * @param recording The recording, or null to stop recording.
+     */
+    public void setRecording(Recording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Applies an input by its code, as stored in a recording.
+     *
+     * @param input The input code.
+     */
+    public void applyInput(int input) {
+
+        switch (input) {
+            case INPUT_LEFT:
+                moveLeft();
+                break;
+            case INPUT_RIGHT:
+                moveRight();
+                break;
+            case INPUT_PULL:
+                pullBait();
+                break;
+            case INPUT_CAST:
+                cast();
+                break;
+            case INPUT_LEFT_DOWN:
+            case INPUT_LEFT_UP:
+                holdLeft(input == INPUT_LEFT_DOWN);
+                break;
+            case INPUT_RIGHT_DOWN:
+            case INPUT_RIGHT_UP:
+                holdRight(input == INPUT_RIGHT_DOWN);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown input: " + input);
+        }
+
+    }
+
+    /**
+     * Advances the engine by the specified amount of time. Whole ticks are run, the rest is
+     * kept for the next call.
+     *
+     * @param dtMillis The time passed in milliseconds.
+     * @return The number of ticks that were run.
+     */
+    public int step(long dtMillis) {
+
+        pendingMillis += dtMillis;
+        int ran = 0;
+        while (pendingMillis >= TICK_MILLIS && !ended) {
+            pendingMillis -= TICK_MILLIS;
+            tick();
+            ran++;
+        }
+        return ran;
+
+    }
+
+    /**
+     * Advances the engine by one tick of 25 ms.
+     */
+    public void tick() {
+
+        if (ended) {
+            return;
+        }
+
+        previousRodY = rodY;
+
+        ticks++;
+        timeLeft = config.getTotalTime() - ticks * TICK_MILLIS;
+
+        // Reports the countdown whenever the shown second changes:
+        int seconds = (timeLeft + 999) / 1000;
+        if (seconds != secondsShown) {
+            secondsShown = seconds;
+            listener.timeChanged(seconds);
+        }
+
+        // Checks if there is still time left, if not, then end the game.
+        if (timeLeft <= 0) {
+            end(true);
+            return;
+        }
+
+        moveFishes();
+        glideBoat();
+
+        if (baitOut) {
+
+            // The lane index finds the fish at the end of the bait line, whatever the number of fishes:
+            int fish = fishStore.findFishAt(rodX, rodY);
+
+            if (fish >= 0) {
+                catchFish(fish);
+            } else if (rodY >= BAIT_LOST_Y) {
+                baitOut = false;
+                rodY = getRodTopY();
+                loseBait();
+            }
+            rodY += ROD_DROP;
+        }
+
+    }
+
+    /**
+     * Moves the boat to the left. A bait that is in the water is lost.
+     */
+    public void moveLeft() {
+
+        if (ended) {
+            return;
+        }
+        record(INPUT_LEFT);
+
+        if (boatX >= BOAT_STEP) {
+            if (baitOut) {
+                loseBait();
+            }
+            boatX -= BOAT_STEP;
+            facingLeft = true;
+            rodX = boatX + 10;
+            rodY = getRodTopY();
+        }
+        baitOut = false;
+
+    }
+
+    /**
+     * Moves the boat to the right. A bait that is in the water is lost.
+     */
+    public void moveRight() {
+
+        if (ended) {
+            return;
+        }
+        record(INPUT_RIGHT);
+
+        if (boatX + BOAT_WIDTH + BOAT_STEP <= windowWidth) {
+            if (baitOut) {
+                loseBait();
+            }
+            boatX += BOAT_STEP;
+            facingLeft = false;
+            rodX = boatX + BOAT_WIDTH - 10;
+            rodY = getRodTopY();
+        }
+        baitOut = false;
+
+    }
+
+    /**
+     * Starts or stops gliding the boat to the left. While it is held, the boat moves a few pixels
+     * on every tick.
+     *
+     * @param held True when the direction is pressed, false when it is released.
+     */
+    public void holdLeft(boolean held) {
+
+        if (!ended && held != holdingLeft) {
+            record(held ? INPUT_LEFT_DOWN : INPUT_LEFT_UP);
+            holdingLeft = held;
+            pressedLeft |= held;
+        }
+
+    }
+
+    /**
+     * Starts or stops gliding the boat to the right. While it is held, the boat moves a few pixels
+     * on every tick.
+     *
+     * @param held True when the direction is pressed, false when it is released.
+     */
+    public void holdRight(boolean held) {
+
+        if (!ended && held != holdingRight) {
+            record(held ? INPUT_RIGHT_DOWN : INPUT_RIGHT_UP);
+            holdingRight = held;
+            pressedRight |= held;
+        }
+
+    }
+
+    /**
+     * Pulls the bait out of the water without losing it, as releasing any other key does.
+     */
+    public void pullBait() {
+
+        if (!ended) {
+            record(INPUT_PULL);
+            baitOut = false;
+        }
+
+    }
+
+    /**
+     * Casts the bait. Casting while a bait is in the water loses that bait and starts a new one.
+     */
+    public void cast() {
+
+        if (ended) {
+            return;
+        }
+        record(INPUT_CAST);
+
+        if (baitOut) {
+            // Resetting the position of the rod
+            rodY = getRodTopY();
+            loseBait();
+        }
+
+        baitOut = true;
+
+    }
+
+    /*
+     * This method changes the position of the fishes.
+     */
+    private void moveFishes() {
+
+        int escaped = fishStore.update(windowWidth, ticks % config.getSpeedUpTicks() == 0);
+
+        if (escaped > 0) {
+            fishCount += escaped;
+            listener.scoreChanged(playerScore, fishCount);
+        }
+
+    }
+
+    /*
+     * Moves the boat in the direction that is held, if only one is. Like a step, moving loses a
+     * bait that is in the water.
+     */
+    private void glideBoat() {
+
+        boolean left = holdingLeft || pressedLeft;
+        boolean right = holdingRight || pressedRight;
+        pressedLeft = false;
+        pressedRight = false;
+        if (left == right) {
+            return;
+        }
+
+        int targetX = left ? Math.max(0, boatX - BOAT_SPEED)
+            : Math.min(windowWidth - BOAT_WIDTH, boatX + BOAT_SPEED);
+        if (targetX == boatX) {
+            return;
+        }
+
+        if (baitOut) {
+            baitOut = false;
+            loseBait();
+            if (ended) {
+                return;
+            }
+        }
+        boatX = targetX;
+        facingLeft = left;
+        rodX = facingLeft ? boatX + 10 : boatX + BOAT_WIDTH - 10;
+        rodY = getRodTopY();
+
+    }
+
+    private void catchFish(int fish) {
+
+        rodY = getRodTopY();
+        fishStore.respawn(fish);
+        fishCount++;
+        playerScore++;
+        baitOut = false;
+        listener.scoreChanged(playerScore, fishCount);
+        listener.fishCaught(fish);
+
+    }
+
+    private void loseBait() {
+
+        rodsLeft--;
+        listener.rodsChanged(rodsLeft);
+        if (rodsLeft == 0) {
+            end(false);
+        }
+
+    }
+
+    private void record(int input) {
+
+        if (recording != null) {
+            recording.record(ticks, input);
+        }
+
+    }
+
+    /**
+     * Computes a checksum of the whole state, used to check that a replay ends like the recorded round.
+     *
+     * @return A 64-bit FNV-1a hash of the state.
+     */
+    public long checksum() {
+
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, ticks);
+        hash = mix(hash, playerScore);
+        hash = mix(hash, fishCount);
+        hash = mix(hash, rodsLeft);
+        hash = mix(hash, boatX);
+        hash = mix(hash, facingLeft ? 1 : 0);
+        hash = mix(hash, baitOut ? 1 : 0);
+        hash = mix(hash, rodX);
+        hash = mix(hash, rodY);
+        hash = mix(hash, ended ? 1 : 0);
+
+        for (int i = 0; i < fishStore.size(); i++) {
+            long velocity = Double.doubleToLongBits(fishStore.getVelocity(i));
+            hash = mix(hash, fishStore.getX(i));
+            hash = mix(hash, (int) velocity);
+            hash = mix(hash, (int) (velocity >>> 32));
+            hash = mix(hash, fishStore.getLane(i));
+        }
+
+        return hash;
+
+    }
+
+    private static long mix(long hash, int value) {
+
+        for (int i = 0; i < 4; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+
+    }
+
+    private void end(boolean timeUp) {
+
+        if (!ended) {
+            ended = true;
+            listener.gameEnded(timeUp);
+        }
+
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    public FishStore getFishStore() {
+        return fishStore;
+    }
+
+    public int getSpriteCount() {
+        return spriteCount;
+    }
+
+    public int getWindowWidth() {
+        return windowWidth;
+    }
+
+    public int getPlayerScore() {
+        return playerScore;
+    }
+
+    public int getFishCount() {
+        return fishCount;
+    }
+
+    public int getRodsLeft() {
+        return rodsLeft;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getTimeLeft() {
+        return timeLeft;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    public boolean isTimeUp() {
+        return timeLeft <= 0;
+    }
+
+    public int getBoatX() {
+        return boatX;
+    }
+
+    public int getBoatY() {
+        return BOAT_Y;
+    }
+
+    public boolean isFacingLeft() {
+        return facingLeft;
+    }
+
+    public boolean isHoldingLeft() {
+        return holdingLeft;
+    }
+
+    public boolean isHoldingRight() {
+        return holdingRight;
+    }
+
+    public boolean isBaitOut() {
+        return baitOut;
+    }
+
+    public int getRodX() {
+        return rodX;
+    }
+
+    public int getRodTopY() {
+        return BOAT_Y + 30;
+    }
+
+    public int getRodY() {
+        return rodY;
+    }
+
+    public int getPreviousRodY() {
+        return previousRodY;
+    }
+
+}
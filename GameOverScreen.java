@@ -0,0 +1,117 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * The `GameOverScreen` class shows the result of a round and lets the player play again or
+ * return to the starting screen. It is built once and filled in by the MainFrame at the end of
+ * every round.
+ */
+public class GameOverScreen extends JPanel {
+
+    private MainFrame mainFrame;
+    private JLabel reasonLabel;
+    private JLabel resultLabel;
+    private JLabel personalBestLabel;
+    private JButton playAgainButton;
+    private JButton mainMenuButton;
+
+    /**
+     * Creates a new `GameOverScreen`.
+     *
+     * @param mainFrame The window that shows the screens of the game.
+     */
+    public GameOverScreen(MainFrame mainFrame) {
+
+        this.mainFrame = mainFrame;
+
+        this.setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        this.setBackground(new Color(100, 160, 250));
+
+        JLabel titleLabel = new JLabel("GAME OVER");
+        titleLabel.setFont(new Font("Serif", Font.PLAIN, 35));
+        titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        reasonLabel = new JLabel(" ");
+        reasonLabel.setFont(new Font("Arial", Font.PLAIN, 24));
+        reasonLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        resultLabel = new JLabel(" ");
+        resultLabel.setFont(new Font("Arial", Font.PLAIN, 20));
+        resultLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        personalBestLabel = new JLabel(" ");
+        personalBestLabel.setFont(new Font("Arial", Font.PLAIN, 16));
+        personalBestLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        playAgainButton = new JButton("Play Again");
+        playAgainButton.setFont(new Font("Sans-Serif", Font.PLAIN, 24));
+        playAgainButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        playAgainButton.setBackground(Color.YELLOW);
+
+        mainMenuButton = new JButton("Main Menu");
+        mainMenuButton.setFont(new Font("Sans-Serif", Font.PLAIN, 24));
+        mainMenuButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        this.add(Box.createVerticalGlue());
+        this.add(titleLabel);
+        this.add(Box.createRigidArea(new Dimension(0, 30)));
+        this.add(reasonLabel);
+        this.add(Box.createRigidArea(new Dimension(0, 10)));
+        this.add(resultLabel);
+        this.add(Box.createRigidArea(new Dimension(0, 10)));
+        this.add(personalBestLabel);
+        this.add(Box.createRigidArea(new Dimension(0, 40)));
+        this.add(playAgainButton);
+        this.add(Box.createRigidArea(new Dimension(0, 20)));
+        this.add(mainMenuButton);
+        this.add(Box.createVerticalGlue());
+
+        playAgainButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                mainFrame.playAgain();
+            }
+        });
+
+        mainMenuButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                mainFrame.showStartingScreen();
+            }
+        });
+
+    }
+
+    /**
+     * Fills in the result of the round that ended.
+     *
+     * @param playerName The name of the player.
+     * @param timeUp True if the time ran out, false if the player ran out of baits.
+     * @param playerScore The player's score.
+     * @param rodsLeft The number of baits left.
+     */
+    void showResult(String playerName, boolean timeUp, int playerScore, int rodsLeft) {
+
+        reasonLabel.setText(timeUp ? "Time is up." : "You ran out of baits.");
+        resultLabel.setText(String.format("Fish caught: %d, Baits left: %d", playerScore, rodsLeft));
+
+        // The statistics include the round just ended, even if the score log has not written it yet:
+        PlayerStats.Record stats = ScoreLog.getDefault().getPlayerStats(playerName);
+        if (stats == null) {
+            personalBestLabel.setText(" ");
+        } else {
+            personalBestLabel.setText(String.format("Personal best: %d   Average: %.1f   Games played: %d",
+                stats.getBest(), stats.getAverage(), stats.getGames()));
+        }
+
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        mainFrame.screenShown(this);
+    }
+
+}
@@ -1,15 +1,27 @@
 import java.awt.event.*;
 import java.awt.*;
 import java.io.*;
-import java.util.Vector;
-import javax.sound.sampled.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 
 /**
- * The GamePanel class represents the main panel for the fishing game.
+ * The GamePanel class represents the main panel for the fishing game. The rules of the game
+ * live in a GameEngine, which a SimulationLoop advances on its own thread. After every tick a
+ * GameSnapshot is published, and the panel paints the latest one, so painting and ticking never
+ * wait for each other. The input of the player is put into an InputQueue by the listeners and
+ * given to the engine at the start of every tick.
  **/
-public class GamePanel extends JPanel implements KeyListener, MouseListener, ActionListener {
+public class GamePanel extends JPanel implements KeyListener, MouseListener, FocusListener, GameEngine.Listener {
+
+    static final BasicStroke BAIT_STROKE = new BasicStroke(3.0f);
+    static final Color BAIT_COLOR = new Color(110, 65, 29);
+
+    // The most ticks that are run at once to catch up after a stall:
+    static final int MAX_CATCH_UP_TICKS = 8;
+
+    // Extra fishes spawned to measure the simulation under load (stress mode):
+    static final int STRESS_FISH = Integer.getInteger("fishgame.stress", 0);
 
     // Variables of the frame:
     int windowWidth;
@@ -17,36 +29,78 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
 
     // Variables of the player:
     String playerName;
-    int playerScore;
-    int timeLeft;
-    int rodsLeft;
-    int fishCount;
     ScorePanel scorePanel;
 
+    // The state and the rules of the round:
+    GameEngine engine;
+
+    // Variables for recording and replaying rounds:
+    Recording recording;
+    Recording replay;
+    int replayPosition;
+
     // Variables of the boat:
     BoatLabel boatLabel;
-    char lastKeyPressed = 'd';
     
     // Variables for the bait:
-    boolean paintBait;
-    int posRod;
-    int repaintCount = 0;
-    Vector<Integer> rodVector = new Vector<Integer>();
     MouseEvent mouseEvent;
 
+    // Variables for the input, taken out of the queue at the start of every tick:
+    InputQueue inputQueue = new InputQueue();
+    int[] drainedInputs = new int[InputQueue.SIZE];
+    long[] drainedTimes = new long[InputQueue.SIZE];
+    InputLatency inputLatency = new InputLatency();
+
     // Variables for the animation: 
-    FishLabel fish1;
-    FishLabel fish2;
-    FishLabel fish3;
+    Image[] fishSprites;
+
+    boolean roundOver;
+
+    // Counts the rounds, so updates posted by the simulation of an earlier round are ignored:
+    volatile int round;
+
+    // The number of rounds of the session written to a recording:
+    private int recordedRounds;
+
+    // Variables for the stress mode:
+    long stressStart;
+    long stressTicks;
+    long stressNanos;
+
+    // Measures the real time passed, so late ticks are caught up:
+    GameClock clock;
+
+    // Advances the round on its own thread:
+    SimulationLoop simulation;
 
-    Timer timer;
-    int totalTime;
-    int timeUpdates;
+    // The snapshots published by the simulation, and the one the event dispatch thread paints:
+    SnapshotBuffer snapshots = new SnapshotBuffer();
+    GameSnapshot shown;
+    AtomicBoolean snapshotPending = new AtomicBoolean();
+
+    // Variables for the active rendering mode:
+    LoopMode loopMode;
+    Canvas canvas;
+    ActiveGameLoop activeLoop;
+
+    // Variables for the repainting:
+    Background background;
+    DirtyRegion dirtyRegion = new DirtyRegion();
+    Rectangle clipBounds = new Rectangle();
+    boolean fullRepaint = Boolean.getBoolean("fishgame.fullRepaint");
+
+    // Measures the time of every phase of a frame, F3 shows it on the screen:
+    FrameProfiler profiler = new FrameProfiler(Boolean.getBoolean("fishgame.profile"));
+    static final int PROFILER_X = 10;
+    static final int PROFILER_Y = 85;
 
     
-    //Variables for the sound:
-    Clip rodSwingClip;
-    Clip fishCaughtClip;
+    //Variables for the sound, decoded once and shared by every round:
+    static final String FISH_CAUGHT_SOUND_PATH = "Sounds/fishcaught.wav";
+    static final int FISH_CAUGHT_SOUND = SoundEngine.getDefault().load(FISH_CAUGHT_SOUND_PATH);
+
+    // The window showing the panel, told about the end of the round, may be null:
+    MainFrame mainFrame;
 
     /**
      * Constructs a new GamePanel.
@@ -57,14 +111,21 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
      */
 
     public GamePanel(int windowWidth, int windowHeight, String playerName) {
+        this(windowWidth, windowHeight, playerName, null);
+    }
+
+    /**
+     * Constructs a new GamePanel that replays a recorded round instead of taking the input of the player.
+     * 
+     * @param windowWidth The width of the game window.
+     * @param windowHeight The height of the game window.
+     * @param playerName The name of the player.
+     * @param replay The recording to replay, or null to play normally.
+     */
+    public GamePanel(int windowWidth, int windowHeight, String playerName, Recording replay) {
 
         // Initializing all of the variables:
-        playerScore = 0;
-        timeUpdates = 0;
-        fishCount = 0;
-        totalTime = 60000;
-        timeLeft = totalTime;
-        rodsLeft = 5;
+        clock = new GameClock(MAX_CATCH_UP_TICKS);
 
         this.windowWidth = windowWidth;
         this.windowHeight = windowHeight;
@@ -76,90 +137,87 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
 
         this.addKeyListener(this);
         this.addMouseListener(this);
+        this.addFocusListener(this);
 
         boatLabel = new BoatLabel();
 
         this.playerName = playerName;
 
-        this.fish1 = new FishLabel("Images/fish11.png", 1, 0, 4, 0.00);
-        this.fish2 = new FishLabel("Images/fish21.png", 2, 0,3, 0.00);
-        this.fish3 = new FishLabel("Images/fish11.png", 3,0, 2, 0.00);
+        // The three fishes of a normal round, plus extra ones in the stress mode:
+        fishSprites = new Image[] {
+            AssetCache.getImage("Images/fish11.png", FishStore.FISH_WIDTH, FishStore.FISH_HEIGHT),
+            AssetCache.getImage("Images/fish21.png", FishStore.FISH_WIDTH, FishStore.FISH_HEIGHT)
+        };
+        this.replay = replay;
+        if (replay != null) {
+            engine = replay.createEngine();
+        } else {
+            GameConfig config = FishGame.gameConfig;
+            if (STRESS_FISH > 0) {
+                config = GameConfig.parse(config + ",extra=" + STRESS_FISH);
+            }
+            long seed = System.nanoTime();
+            engine = new GameEngine(windowWidth, config, seed, fishSprites.length);
+
+            if (FishGame.recordFile != null) {
+                recording = new Recording(seed, windowWidth, fishSprites.length, config);
+                engine.setRecording(recording);
+            }
+        }
+        engine.setListener(this);
 
         scorePanel = new ScorePanel(windowWidth, windowHeight, null);
+        simulation = new SimulationLoop(this, clock);
+        takeSnapshot();
 
         // Creating the background:
-        Background bg = new Background(windowWidth, windowHeight);
-
-        // Setting up the rod vector
-        rodVector.setSize(4);
-        rodVector.set(0, boatLabel.getX()+boatLabel.getWidth()-10);
-        rodVector.set(1,boatLabel.getY()+30);
-        rodVector.set(3,boatLabel.getY()+30);
-
+        background = new Background(windowWidth, windowHeight);
+        background.setCached(!fullRepaint);
+        background.setProfiler(profiler);
 
         //Adding all of the components to the main panel.
-        this.add(bg);
+        this.add(background);
         this.add(boatLabel);
-        this.add(fish1);
-        this.add(fish2);
-        this.add(fish3);
         this.add(scorePanel);
 
-        // Creating our timer that will be used to animate everything (and starting it):
-        timer = new Timer(25, this);
-        timer.start();
+        // The simulation and, in the active rendering mode, the rendering start once the panel is shown:
+        loopMode = FishGame.loopMode;
+
+        if (loopMode == LoopMode.ACTIVE) {
+            // The canvas covers the whole playing area and draws all of the moving objects itself:
+            canvas = new Canvas();
+            canvas.setBounds(0, 75, windowWidth, windowHeight - 75);
+            canvas.setIgnoreRepaint(true);
+            canvas.setFocusable(true);
+            canvas.addKeyListener(this);
+            canvas.addMouseListener(this);
+            canvas.addFocusListener(this);
+            this.add(canvas);
+
+            background.setVisible(false);
+            boatLabel.setVisible(false);
+
+            activeLoop = new ActiveGameLoop(this, canvas);
+        }
 
         // Making so that the fishes appear on top:
         this.setComponentZOrder(boatLabel, 0);
         
         // Initializing the score:
-        scorePanel.updateTime();
-        scorePanel.updateRods();
-        scorePanel.updateScore();
-        
-        fishCaughtClip = loadClip("Sounds/fishcaught.wav");
+        updateHud();
         
     }
 
     
-    /**
-     * Load an audio clip from a specified source.
-     *
-     * This method is used to load an audio clip (sound) from a designated source.
-     * It prepares the audio clip for playback, making it accessible for use in
-     * various parts of the application.
-     *
-     * @param source The source or location of the audio clip to be loaded.
-     * @return An audio clip loaded from the specified source.
-     * @throws IOException If an error occurs while loading the audio clip.
-     */
-    private Clip loadClip(String soundFilePath) {
-        try {
-            InputStream soundStream = getClass().getResourceAsStream(soundFilePath);
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new BufferedInputStream(soundStream));
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioInputStream);
-            return clip;
-        } catch (LineUnavailableException | UnsupportedAudioFileException | IOException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-    
-
     /**
      * Play the sound effect associated with catching a fish.
      *
      * This method is used to trigger the playback of a sound effect that represents
      * the act of catching a fish. It provides audio feedback to the player when a
-     * successful catch occurs.
+     * successful catch occurs. Catches close together play over each other.
      */
     public void playFishCaughtSound() {
-        if (fishCaughtClip.isRunning()) {
-            fishCaughtClip.stop();
-        }
-        fishCaughtClip.setFramePosition(0);
-        fishCaughtClip.start();
+        SoundEngine.getDefault().play(FISH_CAUGHT_SOUND);
     }
 
     
@@ -177,17 +235,53 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
 
         super.paintComponent(g);
 
-        if (paintBait) {
+        if (activeLoop != null) {
+            // The canvas of the active rendering mode covers the playing area:
+            return;
+        }
+
+        Graphics2D g2d = (Graphics2D) g;
+
+        long spritesStart = profiler.start();
 
-            Graphics2D g2d = (Graphics2D) g;
-            drawBait(g2d);
+        if (shown.baitOut) {
+
+            drawBait(g2d, shown, shown.rodY);
 
         }
+
+        drawFishes(g2d, shown, 1.0);
+
+        profiler.end(FrameProfiler.SPRITES, spritesStart);
         
     }
 
     /**
-     * Handles the mouse being pressed.
+     * Paints the panel with its children and draws the profiler overlay on top of them. The
+     * overlay is drawn here and not in paintComponent, since the background is a child
+     * component and would cover it.
+     *
+     * @param g The Graphics object used for painting.
+     */
+    @Override
+    public void paint(Graphics g) {
+
+        long frameStart = profiler.startFrame();
+
+        super.paint(g);
+        profiler.drawOverlay((Graphics2D) g, PROFILER_X, PROFILER_Y);
+
+        profiler.endFrame(frameStart);
+        frameShown();
+        if (activeLoop == null) {
+            // In the active rendering mode, the frames are shown by the loop instead:
+            inputLatency.frameShown(shown.tick);
+        }
+
+    }
+
+    /**
+     * Handles the mouse being pressed: the bait is cast on the next tick.
      * 
      * @param e The MouseEvent object representing the mouse event.
      */
@@ -195,84 +289,74 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
     public void mousePressed(MouseEvent e) {
 
         mouseEvent = e;
-        
-        if (paintBait) {
+        if (replay != null) {
+            return;
+        }
 
-            // Resetting the position of the rod
-            rodVector.set(3, rodVector.get(1));
+        // Casting while the rod was moving loses a bait, the engine handles it:
+        inputQueue.offer(GameEngine.INPUT_CAST, eventNanos(e));
 
-            // Subtract the amount of rods that are left, since button was pressed then the rod was moving:
-            rodsLeft--;
-            scorePanel.updateRods();
-            if (rodsLeft == 0) {
-                    gameEnded();
-                }
-            
-        }
-        
-        // Assigns the boolean variable to true, so the rod is animated afterwards:
-        paintBait = true;   
-        
-        this.repaint();
     }
 
-    /*
-     * 
-     * Method that check is the fish is hit.
+    /**
+     * Handles a key being released: "a" and "d" stop moving the boat, any other key pulls the bait up.
      * 
+     * @param e The KeyEvent object representing the key event.
      */
-    void hit(FishLabel fish) {
-        
-        if (fish.getX() <=  rodVector.get(0) && fish.getX() + 100 >= rodVector.get(0) && fish.getY() <= rodVector.get(3) && fish.getY() + 80 >= rodVector.get(3)) {
-
-            // Update required variables if the end coordinate of the fishing is contained in the label of the fish:
-            rodVector.set(3, rodVector.get(1));
-            fish.setLocation(fish.initialX, fish.initialY);
-            fishCount++;
-            playerScore++;
-            paintBait = false;
-            scorePanel.updateScore();
+    @Override
+    public void keyReleased(KeyEvent e) {
 
-            playFishCaughtSound();
+        if (replay != null) {
+            return;
+        }
 
-            
+        if (e.getKeyCode() == KeyEvent.VK_A) {
+            inputQueue.offer(GameEngine.INPUT_LEFT_UP, eventNanos(e));
+        } else if (e.getKeyCode() == KeyEvent.VK_D) {
+            inputQueue.offer(GameEngine.INPUT_RIGHT_UP, eventNanos(e));
+        } else if (e.getKeyCode() != KeyEvent.VK_F2 && e.getKeyCode() != KeyEvent.VK_F3) {
+            inputQueue.offer(GameEngine.INPUT_PULL, eventNanos(e));
         }
 
     }
-    /*
-     * 
+
+    @Override
+    public void focusGained(FocusEvent e) {}
+
+    /**
+     * Handles the panel losing the keyboard focus, e.g. when the player switches to another
+     * window or a dialog opens. No key released event arrives for the keys still held then, so
+     * the boat is stopped here instead of gliding on until it hits the wall.
+     *
+     * @param e The FocusEvent object representing the focus event.
      */
     @Override
-    public void keyReleased(KeyEvent e) {
+    public void focusLost(FocusEvent e) {
 
-        if ((e.getKeyChar() == 'a' || e.getKeyChar() == 'A') && boatLabel.getX() >= 50) {
-            if (paintBait) {
-                rodsLeft--;
-                scorePanel.updateRods();
-                if (rodsLeft == 0) {
-                    gameEnded();
-                }
-            }
-            boatLabel.setLocation(boatLabel.getX() - 50, boatLabel.getY());
-            lastKeyPressed = 'a';
-            rodVector.set(0, boatLabel.getX()+10);
-            rodVector.set(3, boatLabel.getY()+30);
-
-        } else if ((e.getKeyChar() == 'd' || e.getKeyChar() == 'D') && boatLabel.getX() + boatLabel.getWidth() + 50 <= this.windowWidth) {
-            if (paintBait) {
-                rodsLeft--;
-                scorePanel.updateRods();
-                if (rodsLeft == 0) {
-                    gameEnded();
-                }
-            }
-            boatLabel.setLocation(boatLabel.getX() + 50, boatLabel.getY());
-            lastKeyPressed = 'd';
-            rodVector.set(0, boatLabel.getX()+boatLabel.getWidth()-10);
-            rodVector.set(3, boatLabel.getY()+30);
+        if (replay != null) {
+            return;
         }
 
-        paintBait = false;
+        // Releasing a key that is not held changes nothing:
+        long now = System.nanoTime();
+        inputQueue.offer(GameEngine.INPUT_LEFT_UP, now);
+        inputQueue.offer(GameEngine.INPUT_RIGHT_UP, now);
+
+    }
+
+    /**
+     * Returns the time an input event happened on the System.nanoTime() clock, so the time it
+     * waited in the event queue counts towards the input latency.
+     */
+    static long eventNanos(InputEvent e) {
+
+        long now = System.nanoTime();
+        long waitedMillis = System.currentTimeMillis() - e.getWhen();
+        if (waitedMillis <= 0 || waitedMillis > 1000) {
+            // The clocks disagree, e.g. for synthetic events:
+            return now;
+        }
+        return now - waitedMillis * 1_000_000L;
 
     }
     
@@ -281,8 +365,13 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
      */
     class BoatLabel extends JLabel {
 
+        final Image rightImage;
+        final Image leftImage;
+
         BoatLabel() {
             this.setBounds(550, 325, 200, 150);  
+            rightImage = AssetCache.getImage("Images/boatfisher1.png", 200, 250);
+            leftImage = AssetCache.getImage("Images/boatfisher2.png", 200, 250);
         }
 
     /**
@@ -294,19 +383,19 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
 
         super.paintComponent(g);
 
-        if(lastKeyPressed == 'd') {
+        long spritesStart = profiler.start();
+
+        if (!shown.facingLeft) {
 
-            ImageIcon imageIcon = new ImageIcon("Images/boatfisher1.png");
-            Image image = imageIcon.getImage();
-            g.drawImage(image,0, 0, 200, 250, null);
+            g.drawImage(rightImage, 0, 0, null);
 
-        } else if (lastKeyPressed == 'a') {
+        } else {
 
-            ImageIcon imageIcon = new ImageIcon("Images/boatfisher2.png");
-            Image image = imageIcon.getImage();
-            g.drawImage(image,0, 0, 200, 250, null);
+            g.drawImage(leftImage, 0, 0, null);
 
         }
+
+        profiler.end(FrameProfiler.SPRITES, spritesStart);
        
         }
         
@@ -314,262 +403,486 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
     }
 
     /**
-     * The FishLabel class represents a label for the 3 distinct fishes (contains all information about them).
+     * Advances the game by one tick of 25 ms and publishes a snapshot of it. Called by the
+     * simulation thread, it does not touch any Swing component.
      */
-    class FishLabel extends JLabel {
-     
-        final int levelHeight = 150;
-        int level;
-        double xVelocity;
-        String filePath1;   
-        String filePath2;
-        String mainPath;
-        double xAcceleration; 
-        double initialVelocity;
-        double fishX;
-        int initialX;
-        int initialY;
-        Image image;
-        
-        FishLabel(String filePath, int level, double fishX, double initialVelocity, double xAcceleration) {
-
-            this.level = level;
-            this.mainPath = filePath1;
-            this.xAcceleration = xAcceleration;
-            this.initialVelocity = initialVelocity;
-            this.xVelocity = initialVelocity;
-            this.fishX = fishX;
-            this.initialX = - 150;
-
-            ImageIcon imageIcon = new ImageIcon(filePath);
-            image = imageIcon.getImage();
-
-            if (level == 1) {
-                this.setBounds(0, 520, 100, 80);
-                this.initialY = 520; 
-            }
-            if (level == 2) {
-                this.setBounds(0, 640, 100, 80);
-                this.initialY = 640;
-            }
-            if (level == 3) {
-                this.setBounds(0, 760, 100, 80);
-                this.initialY = 760;
-            }
-            
+    void tick() {
+
+        long tickStart = System.nanoTime();
+
+        if (replay != null) {
+            replayPosition = replay.feed(engine, replayPosition);
+        } else {
+            applyInputs();
+        }
+
+        engine.tick();
 
+        long tickNanos = System.nanoTime() - tickStart;
+        if (STRESS_FISH > 0) {
+            reportStress(tickNanos);
         }
+        profiler.record(FrameProfiler.SIMULATION, tickNanos);
 
-        @Override 
-        protected void paintComponent(Graphics g) {
+        publishSnapshot();
+    }
 
-            g.drawImage(image,0, 0, 100, 80, null);
+    /**
+     * Gives the engine every input that arrived since the last tick, in the order they happened.
+     */
+    void applyInputs() {
 
+        int count = inputQueue.drainTo(drainedInputs, drainedTimes);
+        for (int i = 0; i < count; i++) {
+            engine.applyInput(drainedInputs[i]);
+            // The inputs show from the snapshot of the tick that is about to run:
+            inputLatency.inputApplied(drainedTimes[i], engine.getTicks() + 1);
         }
 
     }
 
     /**
-     * Repaints the panel and handles the animation timer.
-     * 
-     * @param e The ActionEvent object representing the timer event.
+     * Publishes a snapshot of the engine. In the timer mode the event dispatch thread is asked
+     * to paint it, once for any number of snapshots published before it gets to it.
      */
-    @Override
-    public void actionPerformed(ActionEvent e) {
+    void publishSnapshot() {
 
-        timeUpdates++;
+        snapshots.back().copyFrom(engine, System.nanoTime());
+        snapshots.publish();
 
-        timeLeft = totalTime - timeUpdates * 25;
+        if (activeLoop == null && !snapshotPending.getAndSet(true)) {
+            SwingUtilities.invokeLater(this::snapshotPublished);
+        }
 
-        if (timeLeft % 1000 == 0) {
-            scorePanel.updateTime();
-            // Checks if there is still time left, if not, then end the game.
-            if (timeLeft <= 0) {
-                gameEnded();        
-            }
+    }
+
+    /**
+     * Takes the latest snapshot on the event dispatch thread and repaints what changed since
+     * the snapshot painted before.
+     */
+    void snapshotPublished() {
+
+        snapshotPending.set(false);
+
+        // The old snapshot is marked before it is handed back to the simulation:
+        markSnapshot(shown);
+        shown = snapshots.latest();
+        boatLabel.setLocation(shown.boatX, shown.boatY);
+        markSnapshot(shown);
+
+        markProfiler();
+        repaintDamaged();
+
+    }
+
+    /**
+     * Publishes the state of the engine and takes it right away, while the simulation is stopped.
+     */
+    void takeSnapshot() {
+
+        snapshots.back().copyFrom(engine, System.nanoTime());
+        snapshots.publish();
+        if (activeLoop == null) {
+            shown = snapshots.latest();
         }
 
-        paintFishes(fish1, fish2, fish3); 
-        if (paintBait) {
-            
+    }
 
-            if (rodVector.get(3) <= 600) {
-                hit(fish1);
-            } else if (rodVector.get(3) <= 720) {
-                hit(fish2);   
-            } else if (rodVector.get(3) <= 840) {
-                hit(fish3);
-            } else if (rodVector.get(3) >= 940) {
-                paintBait = false;
-                rodVector.set(3, rodVector.get(1));
-                rodsLeft--;
-                scorePanel.updateRods();
-                if (rodsLeft == 0) {
-                    gameEnded();
-                }
+    /**
+     * Collects the simulation time of the ticks in the stress mode and prints it every 5 seconds.
+     */
+    void reportStress(long tickNanos) {
+
+        stressTicks++;
+        stressNanos += tickNanos;
+
+        long now = System.nanoTime();
+        if (stressStart == 0) {
+            stressStart = now;
+        } else if (now - stressStart >= 5_000_000_000L) {
+            double nanosPerTick = (double) stressNanos / stressTicks;
+            System.out.printf("Stress: %d fishes, %.1f us per tick, %.0f ticks/s possible, %.1f ticks/s run%n",
+                engine.getFishStore().size(), nanosPerTick / 1000, 1e9 / nanosPerTick, stressTicks * 1e9 / (now - stressStart));
+            stressStart = now;
+            stressTicks = 0;
+            stressNanos = 0;
+        }
+
+    }
+
+    /**
+     * Marks the bounds of every moving element (fishes, boat and bait) of a snapshot as damaged.
+     */
+    void markSnapshot(GameSnapshot snapshot) {
+
+        for (int lane = 0; lane < FishStore.LANE_COUNT; lane++) {
+            int minX = snapshot.laneMinX[lane];
+            int maxX = snapshot.laneMaxX[lane];
+            if (minX < maxX) {
+                dirtyRegion.add(minX, FishStore.laneY(lane), maxX - minX, FishStore.FISH_HEIGHT);
             }
-            rodVector.set(3, rodVector.get(3) + 15);
         }
+        dirtyRegion.add(snapshot.boatX, snapshot.boatY, GameEngine.BOAT_WIDTH, GameEngine.BOAT_HEIGHT);
+
+        if (snapshot.baitOut) {
+            int top = Math.min(snapshot.rodTopY, snapshot.rodY);
+            int bottom = Math.max(snapshot.rodTopY, snapshot.rodY);
+            // The line is 3 pixels wide, so a margin of 2 pixels is kept around it:
+            dirtyRegion.add(snapshot.rodX - 2, top - 2, 5, bottom - top + 5);
+        }
+
+    }
+
+    /**
+     * Repaints the damaged regions, or the whole panel if full repaints are turned on.
+     */
+    void repaintDamaged() {
+
+        if (loopMode == LoopMode.ACTIVE) {
+            // The active loop renders the whole playing area on every frame:
+            dirtyRegion.clear();
+        } else if (fullRepaint) {
+            dirtyRegion.clear();
+            repaint();
+        } else {
+            dirtyRegion.flush(this);
+        }
+
+    }
+
+    /**
+     * Marks the bounds of the profiler overlay as damaged, so it is refreshed on every tick.
+     */
+    void markProfiler() {
+
+        if (profiler.isEnabled()) {
+            dirtyRegion.add(PROFILER_X, PROFILER_Y, FrameProfiler.OVERLAY_WIDTH, FrameProfiler.OVERLAY_HEIGHT);
+        }
+
+    }
+
+    /**
+     * Shows or hides the profiler overlay. Showing it starts a new profiling session.
+     */
+    void toggleProfiler() {
+
+        // The overlay is marked before and after, so it is also erased when it is hidden:
+        markProfiler();
+        profiler.setEnabled(!profiler.isEnabled());
+        markProfiler();
+        repaintDamaged();
+
+    }
+
+    /**
+     * Switches between repainting only the damaged regions and repainting the whole panel.
+     */
+    void toggleFullRepaint() {
+
+        fullRepaint = !fullRepaint;
+        background.setCached(!fullRepaint);
         repaint();
+
+    }
+
+    // The listener is called on the simulation thread, the HUD is updated on the event dispatch thread:
+
+    @Override
+    public void timeChanged(int secondsLeft) {
+        int timeLeft = engine.getTimeLeft();
+        runOnEdt(() -> {
+            long hudStart = profiler.start();
+            scorePanel.updateTime(timeLeft);
+            profiler.end(FrameProfiler.HUD, hudStart);
+        });
+    }
+
+    @Override
+    public void scoreChanged(int playerScore, int fishCount) {
+        runOnEdt(() -> {
+            long hudStart = profiler.start();
+            scorePanel.updateScore(playerScore, fishCount);
+            profiler.end(FrameProfiler.HUD, hudStart);
+        });
     }
 
-    /*
+    @Override
+    public void rodsChanged(int rodsLeft) {
+        runOnEdt(() -> {
+            long hudStart = profiler.start();
+            scorePanel.updateRods(rodsLeft);
+            profiler.end(FrameProfiler.HUD, hudStart);
+        });
+    }
+
+    @Override
+    public void fishCaught(int fish) {
+        playFishCaughtSound();
+    }
+
+    @Override
+    public void gameEnded(boolean timeUp) {
+        runOnEdt(this::gameEnded);
+    }
+
+    /**
+     * Runs an update on the event dispatch thread, unless a new round was started in the meantime.
+     */
+    void runOnEdt(Runnable update) {
+
+        int postedRound = round;
+        SwingUtilities.invokeLater(() -> {
+            if (round == postedRound) {
+                update.run();
+            }
+        });
+
+    }
+
+    /**
+     * Shows the time, the score and the baits of the engine, while the simulation is stopped.
+     */
+    void updateHud() {
+
+        scorePanel.updateTime(engine.getTimeLeft());
+        scorePanel.updateRods(engine.getRodsLeft());
+        scorePanel.updateScore(engine.getPlayerScore(), engine.getFishCount());
+
+    }
+
+    /**
+     * Draws the bait of a snapshot on the panel, ending at the specified height.
      * 
-     * This method changes the position of the fished.
+     * @param g2d The Graphics2D object used for drawing.
+     * @param snapshot The state of the round to draw.
+     * @param endY The y-coordinate of the end of the bait line.
+     */
+    void drawBait(Graphics2D g2d, GameSnapshot snapshot, int endY) {
+            
+        g2d.setStroke(BAIT_STROKE);
+        g2d.setColor(BAIT_COLOR);    
+        g2d.drawLine(snapshot.rodX, snapshot.rodTopY, snapshot.rodX, endY);
+
+    }
+
+    /**
+     * Renders the whole playing area for the active rendering mode. The fishes and the bait
+     * are drawn in between their positions of the previous and the current tick.
      * 
+     * @param g2d The Graphics2D object used for drawing.
+     * @param snapshot The state of the round to render.
+     * @param alpha How far the frame is between the previous and the current tick (0 to 1).
      */
-    void paintFishes(FishLabel fish1, FishLabel fish2, FishLabel fish3) {
+    void renderFrame(Graphics2D g2d, GameSnapshot snapshot, double alpha) {
+
+        long frameStart = profiler.startFrame();
 
-        if (fish1.getX() >= windowWidth + 100) {
-            fish1.setLocation(fish1.initialX, fish1.initialY);
-            fishCount++;
-            scorePanel.updateScore();
-        } else if (fish2.getX() >= windowWidth + 100) {
-            fish2.setLocation(fish2.initialX, fish2.initialY);
-            fishCount++;
-            scorePanel.updateScore();
-        } else if (fish3.getX() >= windowWidth + 100) {
-            fish3.setLocation(fish3.initialX, fish3.initialY);
-            fishCount++;
-            scorePanel.updateScore();
+        g2d.setColor(getBackground());
+        g2d.fillRect(0, 0, windowWidth, windowHeight);
+
+        // The objects are drawn in the same order as Swing paints the components:
+        long spritesStart = profiler.start();
+        if (snapshot.baitOut) {
+            drawBait(g2d, snapshot, interpolate(snapshot.previousRodY, snapshot.rodY, alpha));
         }
 
-        if (timeUpdates%400 == 0) {
-           fish1.xVelocity += 1;
-            fish2.xVelocity += 1;
-            fish3.xVelocity += 1;  
+        drawFishes(g2d, snapshot, alpha);
+        profiler.end(FrameProfiler.SPRITES, spritesStart);
+
+        long backgroundStart = profiler.start();
+        g2d.drawImage(background.getLayer(g2d.getDeviceConfiguration()), background.getX(), background.getY(), null);
+        profiler.end(FrameProfiler.BACKGROUND, backgroundStart);
+
+        spritesStart = profiler.start();
+        int boatX = snapshot.boatX;
+        int boatY = snapshot.boatY;
+        int boatWidth = GameEngine.BOAT_WIDTH;
+        int boatHeight = GameEngine.BOAT_HEIGHT;
+        Image boatImage = snapshot.facingLeft ? boatLabel.leftImage : boatLabel.rightImage;
+        g2d.drawImage(boatImage, boatX, boatY, boatX + boatWidth, boatY + boatHeight, 0, 0, boatWidth, boatHeight, null);
+        profiler.end(FrameProfiler.SPRITES, spritesStart);
+
+        profiler.drawOverlay(g2d, PROFILER_X, PROFILER_Y);
+        profiler.endFrame(frameStart);
+        frameShown();
+
+    }
+
+    /**
+     * Tells the window a frame was shown, which ends the timing of a switch to the game.
+     */
+    void frameShown() {
+
+        if (mainFrame != null) {
+            mainFrame.screenShown(this);
         }
-        
 
-        fish1.setLocation((int) (fish1.getX() + fish1.xVelocity), fish1.getY());
-        fish2.setLocation((int) (fish2.getX() + fish2.xVelocity), fish2.getY());
-        fish3.setLocation((int) (fish3.getX() + fish3.xVelocity), fish3.getY());
     }
 
     /**
-     * Draws the bait on the panel.
+     * Draws every fish of a snapshot in one pass, skipping the ones outside of the area being painted.
      * 
      * @param g2d The Graphics2D object used for drawing.
+     * @param snapshot The state of the round to draw.
+     * @param alpha How far the frame is between the previous and the current tick (0 to 1).
      */
-    void drawBait(Graphics2D g2d) {
-            
-        g2d.setStroke(new BasicStroke(3.0f));
-        g2d.setColor(new Color(110, 65, 29));    
-        g2d.drawLine(rodVector.get(0), rodVector.get(1), rodVector.get(0), rodVector.get(3));
+    void drawFishes(Graphics2D g2d, GameSnapshot snapshot, double alpha) {
+
+        Rectangle clip = g2d.getClipBounds(clipBounds);
+        int clipLeft = clip != null ? clip.x - FishStore.FISH_WIDTH : Integer.MIN_VALUE;
+        int clipRight = clip != null ? clip.x + clip.width : Integer.MAX_VALUE;
+        int clipTop = clip != null ? clip.y - FishStore.FISH_HEIGHT : Integer.MIN_VALUE;
+        int clipBottom = clip != null ? clip.y + clip.height : Integer.MAX_VALUE;
+
+        int[] x = snapshot.fishX;
+        int[] previousX = snapshot.fishPreviousX;
+        int[] y = snapshot.fishY;
+        for (int i = 0; i < snapshot.fishCount; i++) {
+            int fishX = alpha >= 1.0 ? x[i] : interpolate(previousX[i], x[i], alpha);
+            int fishY = y[i];
+            if (fishX > clipLeft && fishX < clipRight && fishY > clipTop && fishY < clipBottom) {
+                g2d.drawImage(fishSprites[snapshot.fishSprite[i]], fishX, fishY, null);
+            }
+        }
 
     }
 
     /**
-     * Writes the player's name and score to a file.
-     * 
-     * @param playerName The name of the player.
-     * @param playerScore The player's score.
+     * Interpolates between the previous and the current position. Objects that jumped back
+     * (a fish that swam out of the screen, or a bait that was pulled up) are not interpolated.
      */
+    static int interpolate(int previous, int current, double alpha) {
 
-    public static void writeToFile(String playerName, int playerScore)
-    {
-        /**
-         * This try block is used to check for exceptions and handle them appropriately.
-         * It is a part of error-handling and exception management in the code.
-         * 
-         * @see Exception
-         * @see RuntimeException
-         * @see Error
-         */
+        if (current < previous) {
+            return current;
+        }
+        return (int) Math.round(previous + (current - previous) * alpha);
 
-        try {
+    }
 
-            /**
-             * Reads the existing contents of a file and returns the data as a string.
-             *
-             * This method is used to open and read the contents of a file, converting the
-             * data into a string for further processing or manipulation.
-             *
-             * @param filePath The path to the file to be read.
-             * @return A string containing the existing contents of the file.
-             * @throws IOException If an error occurs while reading the file.
-             */
+    /**
+     * Stops advancing the game, in either of the loop modes. Once this returns, the simulation
+     * thread has finished its last tick.
+     */
+    void stopLoop() {
 
-            BufferedReader in = new BufferedReader(new FileReader("score.txt"));
-            StringBuilder fileContents = new StringBuilder();
-            String line;
+        simulation.stop();
+        if (activeLoop != null) {
+            activeLoop.stop();
+        }
 
-            while ((line = in.readLine()) != null) {
-                fileContents.append(line).append("\n");
-            }
-            in.close();
+    }
 
-            /**
-             * Opens the specified file in write mode, clearing its existing content.
-             *
-             * This method is used to open a file in write mode, which means it will
-             * truncate and clear any existing content in the file. This operation is
-             * typically performed when you want to overwrite the contents of the file
-             * with new data.
-             *
-             * @param filePath The path to the file to be opened in write mode.
-             * @throws IOException If an error occurs while opening the file in write mode.
-             */
-            BufferedWriter out = new BufferedWriter(new FileWriter("score.txt"));
+    /**
+     * Starts the simulation and, in the active rendering mode, the rendering. Without a screen
+     * (in tests), only the simulation is started.
+     */
+    void startLoop() {
 
-            /**
-             * Writes new data at the beginning of the specified file.
-             *
-             * This method is used to prepend new data to the beginning of a file while
-             * preserving its existing content. The new data is inserted at the top of
-             * the file, pushing the original content downwards.
-             *
-             * @param filePath The path to the file where the new data will be written.
-             * @param newData The data to be written at the beginning of the file.
-             * @throws IOException If an error occurs while writing the new data to the file.
-             */
+        clock.start();
+        simulation.start();
+        if (!isDisplayable()) {
+            return;
+        }
+        if (activeLoop != null) {
+            activeLoop.start();
+            canvas.requestFocus();
+        } else {
+            requestFocusInWindow();
+        }
 
-            out.write(String.format("%s: %d\n", playerName, playerScore));
+    }
 
-            /**
-             * Writes back the original contents to the specified file.
-             *
-             * This method is used to restore the original contents of a file after making
-             * modifications. It overwrites any changes made to the file with the original
-             * data.
-             *
-             * @param filePath The path to the file where the original contents will be written.
-             * @param originalData The original data to be written back to the file.
-             * @throws IOException If an error occurs while writing the original contents to the file.
-             */
+    /**
+     * Stops the round without ending it. The panel waits until resetRound() starts a new one.
+     */
+    void idle() {
 
-            out.write(fileContents.toString());
+        stopLoop();
+        roundOver = true;
 
-            out.close();
-            
+    }
+
+    /**
+     * Starts the round over in place. The engine, the components, the images and the loops of
+     * the panel are reused, only the state of the round is restored: a new seed, or the seed of
+     * the recording when replaying, the full time and baits, and the boat at its start.
+     */
+    void resetRound() {
+
+        stopLoop();
+        round++;
+
+        if (replay != null) {
+            engine.reset(replay.getSeed());
+            replayPosition = 0;
+        } else {
+            long seed = System.nanoTime();
+            engine.reset(seed);
+            if (FishGame.recordFile != null) {
+                recording = new Recording(seed, windowWidth, fishSprites.length, engine.getConfig());
+                engine.setRecording(recording);
+            }
         }
- 
-        /**
-         * This catch block is used to handle exceptions that may occur in the code.
-         *
-         * When an exception is thrown in the code preceding this catch block, this block
-         * is responsible for catching and handling the exception. It contains the logic
-         * to handle the exception, which may include logging, error messages, or other
-         * appropriate actions to address the exceptional situation.
-         *
-         * @param exception The exception that is caught and handled by this block.
-         */        
-        
-    catch (IOException e) {
- 
+
+        roundOver = false;
+        mouseEvent = null;
+        inputQueue.clear();
+        inputLatency.reset();
+        stressStart = 0;
+        stressTicks = 0;
+        stressNanos = 0;
+        profiler.reset();
+
+        takeSnapshot();
+        boatLabel.setLocation(engine.getBoatX(), engine.getBoatY());
+        scorePanel.setRodCount(engine.getConfig().getRods());
+        updateHud();
+
+        dirtyRegion.clear();
+        repaint();
+
+        // Without a screen (in tests), the caller starts the loop or runs the ticks itself:
+        if (isDisplayable()) {
+            startLoop();
+        }
+
+    }
+
     /**
-     * Display a user-friendly message when an exception occurs in the code.
-     *
-     * This code snippet is responsible for providing feedback to the user or
-     * developer when an exception is encountered. It typically displays an
-     * error message or log information that helps identify and understand the
-     * exceptional situation that has occurred.
-     *
-     * @param errorMessage The message to be displayed when an exception occurs.
+     * Starts the loops once the panel is shown on the screen.
      */
-            System.out.println("exception occurred" + e);
+    @Override
+    public void addNotify() {
+
+        super.addNotify();
+        if (!simulation.isRunning() && !roundOver) {
+            startLoop();
         }
-        
+
+    }
+
+    /**
+     * Stops the loops before the panel is removed from the screen.
+     */
+    @Override
+    public void removeNotify() {
+
+        stopLoop();
+        super.removeNotify();
+
+    }
+
+    /**
+     * Adds the player's name and score to the score log. The log is written by its own thread,
+     * so this never waits for the disk.
+     * 
+     * @param playerName The name of the player.
+     * @param playerScore The player's score.
+     */
+
+    public static void writeToFile(String playerName, int playerScore) {
+        ScoreLog.getDefault().append(playerName, playerScore);
     }
 
 
@@ -579,7 +892,31 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
     public void mouseEntered(MouseEvent e) {}
     public void mouseExited(MouseEvent e) {}
     public void keyTyped(KeyEvent e) {}
-    public void keyPressed(KeyEvent e){}
+
+    /**
+     * Handles a key being pressed: "a" and "d" move the boat for as long as they are held, F2
+     * toggles between full and partial repaints and F3 shows or hides the profiler overlay.
+     *
+     * @param e The KeyEvent object representing the key event.
+     */
+    @Override
+    public void keyPressed(KeyEvent e) {
+
+        if (e.getKeyCode() == KeyEvent.VK_A) {
+            if (replay == null) {
+                inputQueue.offer(GameEngine.INPUT_LEFT_DOWN, eventNanos(e));
+            }
+        } else if (e.getKeyCode() == KeyEvent.VK_D) {
+            if (replay == null) {
+                inputQueue.offer(GameEngine.INPUT_RIGHT_DOWN, eventNanos(e));
+            }
+        } else if (e.getKeyCode() == KeyEvent.VK_F2) {
+            toggleFullRepaint();
+        } else if (e.getKeyCode() == KeyEvent.VK_F3) {
+            toggleProfiler();
+        }
+
+    }
 
 
 
@@ -591,6 +928,8 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
         JPanel rodsPanel;
         JLabel timer;
         JLabel rods;
+        JLabel[] rodLabels = new JLabel[0];
+        JPanel verticalCenteringPanel;
     
         JButton resetButton;
     
@@ -599,10 +938,8 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
     
         ScorePanel(int windowWidth, int windowHeight, GamePanel gamePanel) {
 
-            baitIcon = new ImageIcon("Images/bait.png");
-            baitCrossIcon = new ImageIcon("Images/baitcross.png");
-            baitIcon = new ImageIcon(baitIcon.getImage().getScaledInstance(40, 40, Image.SCALE_SMOOTH));
-            baitCrossIcon = new ImageIcon(baitCrossIcon.getImage().getScaledInstance(40, 40, Image.SCALE_SMOOTH));
+            baitIcon = new ImageIcon(AssetCache.getImage("Images/bait.png", 40, 40));
+            baitCrossIcon = new ImageIcon(AssetCache.getImage("Images/baitcross.png", 40, 40));
     
             this.setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
             this.setBounds(0, 0, windowWidth, 75);
@@ -612,10 +949,9 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
             rodsPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
             rodsPanel.setOpaque(false);
     
-            JPanel verticalCenteringPanel = new JPanel(new GridBagLayout());
+            verticalCenteringPanel = new JPanel(new GridBagLayout());
             verticalCenteringPanel.add(rodsPanel);
             verticalCenteringPanel.setOpaque(false);
-            verticalCenteringPanel.setMaximumSize(new Dimension(300, 75));
 
             score = new JLabel();
             rods = new JLabel();
@@ -652,83 +988,18 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
             resetButton.addActionListener(new ActionListener() {        
                 @Override
                 public void actionPerformed(ActionEvent e) {        
-                    GamePanel.this.timer.stop();
-                    
                     /**
-                    * Retrieve the parent frame associated with the ScorePanel.
-                    *
-                    * This method is used to obtain the parent frame (usually a JFrame) that contains
-                    * the ScorePanel component. It allows access to the enclosing frame for further
-                    * manipulation or interaction with the graphical user interface.
-                    *
-                    * @return The parent frame (typically a JFrame) of the ScorePanel.
-                    */
-                    JFrame frame = (JFrame) SwingUtilities.getWindowAncestor(ScorePanel.this);     
-            
-                    /**
-                     * Remove the current GamePanel from the frame.
-                     *
-                     * This method is used to remove the existing GamePanel component from the frame,
-                     * effectively detaching it from the graphical user interface. It allows for
-                     * replacing the current GamePanel with a new one or altering the user interface
-                     * dynamically.
+                     * Start the round over in place.
                      *
-                     * @param frame The frame from which the GamePanel will be removed.
+                     * The panel, its components, images and loops are kept, only the state of
+                     * the round is restored.
                      */
-                    Component[] components = frame.getContentPane().getComponents();       
-                    for (Component component : components) {        
-                        if (component instanceof GamePanel) {       
-                            GamePanel oldGamePanel = (GamePanel) component;     
-                            oldGamePanel.removeKeyListener(oldGamePanel); 
-                            frame.getContentPane().remove(component);       
-                            break;
-                        }
-                    }
-                    
-                    /**
-                     * Create a new GamePanel and add it to the specified frame.
-                     *
-                     * This method is used to create a new instance of a GamePanel component and
-                     * add it to a frame. It allows for refreshing or replacing the current GamePanel
-                     * in the graphical user interface with a new one.
-                     *
-                     * @param frame The frame to which the new GamePanel will be added.
-                     * @return The newly created GamePanel instance that is added to the frame.
-                     */
-
-                    GamePanel newGamePanel = new GamePanel(windowWidth, windowHeight, playerName);      
-                    frame.add(newGamePanel);        
-                    newGamePanel.addKeyListener(newGamePanel);
-                    /**
-                     * Add key listeners to the specified GamePanel for user input.
-                     *
-                     * This method is used to attach key listeners to a GamePanel component, enabling
-                     * it to respond to user keyboard input. Key listeners are typically used to handle
-                     * user interactions like moving objects or triggering actions within the game.
-                     *
-                     * @param gamePanel The GamePanel to which key listeners will be added.
-                     */
-
-                    newGamePanel.setFocusable(true);        
-                    newGamePanel.requestFocusInWindow();        
-
-            
-                    /**
-                     * Revalidate and repaint the frame to update its components.
-                     *
-                     * This method is used to trigger a revalidation and repainting of the frame's
-                     * components. It ensures that any changes made to the graphical user interface
-                     * are properly reflected and updated on the screen, providing a visual update
-                     * to the user.
-                     *
-                     * @param frame The frame that needs revalidation and repainting.
-                     */
-                    frame.revalidate();     
-                    frame.repaint();        
+                    GamePanel.this.resetRound();
                 }
             });
     
             rodsPanel.add(rods);
+            setRodCount(engine.getConfig().getRods());
     
             // Required for the horizontal layout of all the components:
             this.add(Box.createHorizontalGlue());
@@ -743,59 +1014,155 @@ public class GamePanel extends JPanel implements KeyListener, MouseListener, Act
 
         }
     
-        public void updateTime() {
+        public void updateTime(int timeLeft) {
             if (Math.round(timeLeft/1000) <= 10) {
                 timer.setForeground(Color.RED);
+            } else {
+                timer.setForeground(Color.GRAY);
             }
             timer.setText(String.format("Time left: %d seconds", Math.round(timeLeft/1000)));
         }
     
-        public void updateScore() {
+        public void updateScore(int playerScore, int fishCount) {
             score.setText(String.format("Fish caught: %d / %d", playerScore, fishCount));
         }
     
-        public void updateRods() {
-            rodsPanel.removeAll();
+        /**
+         * Shows one label per bait of a round, the icons are swapped when a bait is lost. The
+         * labels are only built again when the number of baits changed.
+         *
+         * @param rodCount The number of baits a round starts with.
+         */
+        public void setRodCount(int rodCount) {
+
+            if (rodLabels.length == rodCount) {
+                return;
+            }
+
+            for (JLabel rodLabel : rodLabels) {
+                rodsPanel.remove(rodLabel);
+            }
+            rodLabels = new JLabel[rodCount];
+            for (int i = 0; i < rodLabels.length; i++) {
+                rodLabels[i] = new JLabel(baitIcon);
+                rodsPanel.add(rodLabels[i]);
+            }
+
+            // The baits are kept on one line, however many there are:
+            verticalCenteringPanel.setMaximumSize(new Dimension(Math.max(300, rodsPanel.getPreferredSize().width + 10), 75));
+            revalidate();
+            repaint();
+
+        }
+
+        public void updateRods(int rodsLeft) {
             rods.setText("Baits: ");
-            rodsPanel.add(rods);
     
-            for (int i = 1; i <= 5; i++) {
+            for (int i = 1; i <= rodLabels.length; i++) {
                 if (i <= rodsLeft) {
-                    JLabel rodImage = new JLabel(baitIcon);
-                    rodsPanel.add(rodImage);
+                    rodLabels[i - 1].setIcon(baitIcon);
                 } else {
-                    JLabel rodImage = new JLabel(baitCrossIcon);
-                    rodsPanel.add(rodImage);
+                    rodLabels[i - 1].setIcon(baitCrossIcon);
                 }
             }
         }
     }
 
     /**
-     * Handles the game ending, displays a message, and returns to the starting screen.
+     * Turns the name of a player into a part of a file name: the characters that are not
+     * allowed in file names on some systems, and control characters, are replaced by "_".
+     *
+     * @param playerName The name of the player, as typed on the starting screen.
+     * @return The name without path separators or reserved characters.
+     */
+    static String fileNamePart(String playerName) {
+
+        StringBuilder part = new StringBuilder(playerName.trim());
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c < ' ' || c == 127 || "/\\:*?\"<>|".indexOf(c) >= 0) {
+                part.setCharAt(i, '_');
+            }
+        }
+        return part.length() > 0 ? part.toString() : "player";
+
+    }
+
+    /**
+     * Returns the file a round of the session is recorded to: the file given with --record,
+     * with the number of the round before its extension, e.g. "round-2.rec".
+     *
+     * @param file The file given with --record.
+     * @param number The number of the round, from 1.
+     * @return The file of the round, in the same directory.
+     */
+    static File numberedFile(File file, int number) {
+
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String numbered = dot > 0
+            ? name.substring(0, dot) + "-" + number + name.substring(dot)
+            : name + "-" + number;
+        return new File(file.getParentFile(), numbered);
+
+    }
+
+    /**
+     * Handles the game ending, saves the score and shows the game over screen.
      */
     void gameEnded() {
 
-        timer.stop();
-        writeToFile(playerName,  playerScore);
+        if (roundOver) {
+            return;
+        }
+        roundOver = true;
+
+        stopLoop();
+        System.out.println("Round of " + playerName + " ended. " + clock.report());
+        System.out.println(simulation.report());
+        if (replay == null) {
+            System.out.println(inputLatency.report());
+        }
+
+        int playerScore = engine.getPlayerScore();
+        int rodsLeft = engine.getRodsLeft();
 
-        String message;
-        if (timeLeft == 0) {
-            message = "Time is up.\n Fish caught: %d, Baits left: %d.\n Return to the starting screen...".formatted(playerScore, rodsLeft);
+        if (replay != null) {
+            System.out.println(replay.matches(engine) ? "The replay matches the recorded round."
+                : "The replay DIVERGED from the recorded round.");
         } else {
-            message = "You ran out of baits.\n Fish caught: %d, Baits left: %d.\n Return to the starting screen...".formatted(playerScore, rodsLeft);
+            writeToFile(playerName,  playerScore);
+            if (FishGame.leaderboardClient != null) {
+                FishGame.leaderboardClient.submit(playerName, playerScore);
+            }
         }
-    
-        JOptionPane.showMessageDialog(null, message, "Game Over", JOptionPane.INFORMATION_MESSAGE);
 
-        JFrame frame = (JFrame) SwingUtilities.getWindowAncestor(this);
-        
-        this.removeAll();
-        frame.remove(this);
-        frame.dispose();
+        if (profiler.isEnabled()) {
+            File profileFile = new File("profile-" + fileNamePart(playerName) + "-" + System.currentTimeMillis() + ".csv");
+            try {
+                profiler.writeCsv(profileFile);
+                System.out.println("Profile written to " + profileFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (recording != null) {
+            recording.finish(engine);
+            recordedRounds++;
+            File recordFile = numberedFile(FishGame.recordFile, recordedRounds);
+            try {
+                recording.write(recordFile);
+                System.out.println("Round recorded to " + recordFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (mainFrame != null) {
+            mainFrame.showGameOver(playerName, engine.isTimeUp(), playerScore, rodsLeft);
+        }
 
-        FishGame.run();
-        
     }
 
 
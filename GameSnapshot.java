@@ -0,0 +1,89 @@
+/**
+ * The `GameSnapshot` class is a copy of everything the renderers draw, taken by the simulation
+ * after a tick: the fishes, the boat and the bait. The simulation fills a snapshot and publishes
+ * it through a SnapshotBuffer, and after that it is only read, so the painting code never looks at
+ * the GameEngine while the simulation thread changes it.
+ *
+ * The arrays are reused from one tick to the next and only grow, so taking a snapshot creates no
+ * objects once the number of fishes stops changing.
+ */
+public class GameSnapshot {
+
+    // The tick the snapshot was taken after, and when:
+    int tick;
+    long nanos;
+
+    // Variables of the fishes:
+    int fishCount;
+    int[] fishX = new int[0];
+    int[] fishPreviousX = new int[0];
+    int[] fishY = new int[0];
+    int[] fishSprite = new int[0];
+
+    // The leftmost pixel and the pixel after the rightmost pixel covered by the fishes of every lane:
+    final int[] laneMinX = new int[FishStore.LANE_COUNT];
+    final int[] laneMaxX = new int[FishStore.LANE_COUNT];
+
+    // Variables of the boat:
+    int boatX;
+    int boatY;
+    boolean facingLeft;
+
+    // Variables of the bait:
+    boolean baitOut;
+    int rodX;
+    int rodTopY;
+    int rodY;
+    int previousRodY;
+
+    /**
+     * Copies the state of the engine into this snapshot. Only called by the thread advancing the engine.
+     *
+     * @param engine The engine.
+     * @param nanos The time of the copy, from System.nanoTime().
+     */
+    void copyFrom(GameEngine engine, long nanos) {
+
+        this.tick = engine.getTicks();
+        this.nanos = nanos;
+
+        FishStore fishStore = engine.getFishStore();
+        fishCount = fishStore.size();
+        if (fishX.length < fishCount) {
+            fishX = new int[fishCount];
+            fishPreviousX = new int[fishCount];
+            fishY = new int[fishCount];
+            fishSprite = new int[fishCount];
+        }
+
+        for (int lane = 0; lane < FishStore.LANE_COUNT; lane++) {
+            laneMinX[lane] = Integer.MAX_VALUE;
+            laneMaxX[lane] = Integer.MIN_VALUE;
+        }
+
+        for (int i = 0; i < fishCount; i++) {
+            int x = fishStore.getX(i);
+            int previousX = fishStore.getPreviousX(i);
+            int lane = fishStore.getLane(i);
+            fishX[i] = x;
+            fishPreviousX[i] = previousX;
+            fishY[i] = fishStore.getY(i);
+            fishSprite[i] = fishStore.getSprite(i);
+            // The previous position is included, since the renderers interpolate from it:
+            laneMinX[lane] = Math.min(laneMinX[lane], Math.min(x, previousX));
+            laneMaxX[lane] = Math.max(laneMaxX[lane], Math.max(x, previousX) + FishStore.FISH_WIDTH);
+        }
+
+        boatX = engine.getBoatX();
+        boatY = engine.getBoatY();
+        facingLeft = engine.isFacingLeft();
+
+        baitOut = engine.isBaitOut();
+        rodX = engine.getRodX();
+        rodTopY = engine.getRodTopY();
+        rodY = engine.getRodY();
+        previousRodY = engine.getPreviousRodY();
+
+    }
+
+}
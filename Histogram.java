@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * The `Histogram` class counts durations in nanoseconds in a fixed number of log-linear buckets:
+ * every power of two is split into 16 buckets, so percentiles are accurate to about 6%.
+ * Recording a value never creates objects.
+ */
+public class Histogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Adds a value to the histogram. Negative values are counted as 0.
+     *
+     * @param value The value, usually a duration in nanoseconds.
+     */
+    public void record(long value) {
+
+        value = Math.max(value, 0);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+
+    }
+
+    /**
+     * Adds every value of another histogram to this one.
+     *
+     * @param other The other histogram.
+     */
+    public void add(Histogram other) {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+
+    }
+
+    /**
+     * Removes every value from the histogram.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Returns the value below which the specified fraction of the values lies.
+     *
+     * @param fraction The fraction, for example 0.99 for the 99th percentile.
+     * @return The upper bound of the bucket containing the percentile, or 0 if the histogram is empty.
+     */
+    public long percentile(double fraction) {
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the number of values in a bucket.
+     *
+     * @param bucket The bucket.
+     * @return The number of values.
+     */
+    public long getBucketCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Returns the smallest value that is counted in a bucket.
+     *
+     * @param bucket The bucket.
+     * @return The lower bound of the bucket.
+     */
+    public static long lowerBound(int bucket) {
+
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+
+    }
+
+    /**
+     * Returns the largest value that is counted in a bucket.
+     *
+     * @param bucket The bucket.
+     * @return The upper bound of the bucket.
+     */
+    public static long upperBound(int bucket) {
+        return bucket + 1 < BUCKETS ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    static int bucketOf(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * The `InputLatency` class measures how long an input of the player takes to show on the screen:
+ * from the moment the event happened until the first frame drawn from the tick that applied it,
+ * or a later one, has been shown. The times are collected in a Histogram and reported at the end
+ * of a round.
+ *
+ * Inputs are applied by the simulation thread and frames are shown by another one, so every
+ * method is synchronized.
+ */
+public class InputLatency {
+
+    private final Histogram latencies = new Histogram();
+
+    // The times and the ticks of the inputs that were applied but not shown yet, oldest first:
+    private final long[] pending = new long[InputQueue.SIZE];
+    private final int[] pendingTicks = new int[InputQueue.SIZE];
+    private int pendingCount;
+
+    /**
+     * Adds an input that was applied to the engine and waits for a frame showing it.
+     *
+     * @param nanos The time the input happened, from System.nanoTime().
+     * @param tick The tick the input was applied in.
+     */
+    public synchronized void inputApplied(long nanos, int tick) {
+
+        if (pendingCount < pending.length) {
+            pending[pendingCount] = nanos;
+            pendingTicks[pendingCount] = tick;
+            pendingCount++;
+        } else {
+            // No frame was shown for a whole queue of inputs, the last one waits for the newest tick:
+            pendingTicks[pendingCount - 1] = tick;
+        }
+
+    }
+
+    /**
+     * Ends the measurement of every input applied in the shown tick or before it.
+     *
+     * @param tick The tick the shown frame was drawn from.
+     */
+    public synchronized void frameShown(int tick) {
+
+        if (pendingCount == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        int shown = 0;
+        while (shown < pendingCount && pendingTicks[shown] <= tick) {
+            latencies.record(now - pending[shown]);
+            shown++;
+        }
+        if (shown > 0) {
+            System.arraycopy(pending, shown, pending, 0, pendingCount - shown);
+            System.arraycopy(pendingTicks, shown, pendingTicks, 0, pendingCount - shown);
+            pendingCount -= shown;
+        }
+
+    }
+
+    /**
+     * Removes every measurement, used when a new round starts.
+     */
+    public synchronized void reset() {
+        latencies.reset();
+        pendingCount = 0;
+    }
+
+    public synchronized long getCount() {
+        return latencies.getCount();
+    }
+
+    /**
+     * Returns the latency at a percentile, in nanoseconds.
+     *
+     * @param fraction The percentile as a fraction, e.g. 0.99.
+     */
+    public synchronized long percentile(double fraction) {
+        return latencies.percentile(fraction);
+    }
+
+    /**
+     * Returns a report of the latencies, in the style of the GameClock report.
+     *
+     * @return A single line report.
+     */
+    public synchronized String report() {
+
+        if (latencies.getCount() == 0) {
+            return "Input latency: no inputs";
+        }
+        return String.format("Input latency: %d inputs, p50: %.1f ms, p90: %.1f ms, p99: %.1f ms, max: %.1f ms",
+            latencies.getCount(), latencies.percentile(0.50) / 1e6, latencies.percentile(0.90) / 1e6,
+            latencies.percentile(0.99) / 1e6, latencies.getMax() / 1e6);
+
+    }
+
+}
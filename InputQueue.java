@@ -0,0 +1,84 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The `InputQueue` class carries the input of the player from the event listeners to the tick.
+ * The listeners only put the code of the input and the time it happened into a ring buffer, and
+ * the tick takes every waiting input out at the start, before the engine advances. The engine is
+ * therefore only changed at one point of the tick, and the inputs are applied in the order they
+ * happened, also when several of them arrive between two ticks.
+ *
+ * There is one writer (the event dispatch thread) and one reader (the thread running the ticks),
+ * so neither side needs a lock. Adding and taking inputs creates no objects.
+ */
+public class InputQueue {
+
+    // The number of inputs the ring buffer holds, a power of two:
+    static final int SIZE = 64;
+
+    private final int[] inputs = new int[SIZE];
+    private final long[] times = new long[SIZE];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long dropped;
+
+    /**
+     * Adds an input. Returns right away, the input is applied by the next tick.
+     *
+     * @param input The input code, one of the GameEngine.INPUT_ constants.
+     * @param nanos The time the input happened, from System.nanoTime().
+     * @return False if the queue was full and the input was dropped.
+     */
+    public boolean offer(int input, long nanos) {
+
+        long position = tail.get();
+        if (position - head.get() >= SIZE) {
+            dropped++;
+            return false;
+        }
+        int index = (int) (position & (SIZE - 1));
+        inputs[index] = input;
+        times[index] = nanos;
+        // Publishes the input to the reader:
+        tail.lazySet(position + 1);
+        return true;
+
+    }
+
+    /**
+     * Takes every waiting input out of the queue, oldest first.
+     *
+     * @param inputs Receives the input codes, at least SIZE long.
+     * @param times Receives the times the inputs happened, at least SIZE long.
+     * @return The number of inputs taken.
+     */
+    public int drainTo(int[] inputs, long[] times) {
+
+        long position = head.get();
+        int count = (int) (tail.get() - position);
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((position + i) & (SIZE - 1));
+            inputs[i] = this.inputs[index];
+            times[i] = this.times[index];
+        }
+        // Frees the slots for the writer:
+        head.lazySet(position + count);
+        return count;
+
+    }
+
+    /**
+     * Removes every waiting input. Only called by the reader.
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+}
@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * The `LaneIndex` class is a uniform grid over the fish lanes. Every lane is split into cells
+ * as wide as a fish, and every cell keeps a linked list of the fishes whose left edge lies in it.
+ * The lists are stored in primitive arrays, so moving a fish between cells creates no objects.
+ * Positions outside of the grid are kept in the first or the last cell of their lane.
+ */
+public class LaneIndex {
+
+    static final int CELL_WIDTH = FishStore.FISH_WIDTH;
+
+    private final int minX;
+    private final int columns;
+
+    // First fish of every cell, and the links between the fishes of a cell (-1 ends a list):
+    private final int[] head;
+    private int[] next;
+    private int[] previous;
+    private int[] cellOf;
+
+    /**
+     * Constructs a new LaneIndex.
+     *
+     * @param capacity The number of fishes the index can hold before it has to grow.
+     * @param minX     The smallest x-coordinate covered by the grid.
+     * @param maxX     The largest x-coordinate covered by the grid.
+     */
+    public LaneIndex(int capacity, int minX, int maxX) {
+
+        this.minX = minX;
+        this.columns = Math.max(1, (maxX - minX) / CELL_WIDTH + 1);
+
+        head = new int[FishStore.LANE_COUNT * columns];
+        next = new int[capacity];
+        previous = new int[capacity];
+        cellOf = new int[capacity];
+        clear();
+
+    }
+
+    /**
+     * Makes room for the specified number of fishes.
+     *
+     * @param capacity The new capacity.
+     */
+    public void grow(int capacity) {
+
+        if (capacity > next.length) {
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            cellOf = Arrays.copyOf(cellOf, capacity);
+        }
+
+    }
+
+    /**
+     * Removes every fish from the index.
+     */
+    public void clear() {
+        Arrays.fill(head, -1);
+    }
+
+    /**
+     * Returns the column of the grid that contains the specified x-coordinate.
+     *
+     * @param x The x-coordinate.
+     * @return The column, clamped to the grid.
+     */
+    public int column(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x - minX, CELL_WIDTH)));
+    }
+
+    /**
+     * Adds a fish to the cell containing the specified position.
+     *
+     * @param fish The index of the fish.
+     * @param lane The lane of the fish.
+     * @param x    The x-coordinate of the fish.
+     */
+    public void insert(int fish, int lane, int x) {
+        link(fish, lane * columns + column(x));
+    }
+
+    /**
+     * Moves a fish to the cell containing its new position, if it changed.
+     *
+     * @param fish The index of the fish.
+     * @param lane The lane of the fish.
+     * @param x    The new x-coordinate of the fish.
+     */
+    public void move(int fish, int lane, int x) {
+
+        int cell = lane * columns + column(x);
+        if (cell != cellOf[fish]) {
+            unlink(fish);
+            link(fish, cell);
+        }
+
+    }
+
+    /**
+     * Returns the first fish of a cell.
+     *
+     * @param lane   The lane of the cell.
+     * @param column The column of the cell.
+     * @return The index of the fish, or -1 if the cell is empty.
+     */
+    public int first(int lane, int column) {
+        return head[lane * columns + column];
+    }
+
+    /**
+     * Returns the fish after the specified one in the same cell.
+     *
+     * @param fish The index of the fish.
+     * @return The index of the next fish, or -1 if it was the last one.
+     */
+    public int next(int fish) {
+        return next[fish];
+    }
+
+    private void link(int fish, int cell) {
+
+        int first = head[cell];
+        next[fish] = first;
+        previous[fish] = -1;
+        if (first >= 0) {
+            previous[first] = fish;
+        }
+        head[cell] = fish;
+        cellOf[fish] = cell;
+
+    }
+
+    private void unlink(int fish) {
+
+        int before = previous[fish];
+        int after = next[fish];
+        if (before >= 0) {
+            next[before] = after;
+        } else {
+            head[cellOf[fish]] = after;
+        }
+        if (after >= 0) {
+            previous[after] = before;
+        }
+
+    }
+
+}
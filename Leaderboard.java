@@ -0,0 +1,215 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The `Leaderboard` class keeps the K best results of the score log, best first. Results of the
+ * same score keep the order they were played in. The leaderboard remembers how much of the log
+ * it covers, so after a restart only the results appended since it was last saved are read.
+ *
+ * The file holds the magic "FGLB", the version, the covered length of the log, the capacity,
+ * the number of results and every result as a name and a score.
+ */
+public class Leaderboard {
+
+    static final int MAGIC = 0x46474C42;
+    static final int VERSION = 1;
+
+    // The number of results kept by the leaderboard of the game:
+    static final int DEFAULT_SIZE = 10;
+
+    private final String[] names;
+    private final int[] scores;
+    private int size;
+
+    // The length of the part of the log the results were taken from:
+    private long coveredLength;
+
+    /**
+     * Constructs an empty leaderboard.
+     *
+     * @param capacity The number of results kept.
+     */
+    public Leaderboard(int capacity) {
+        names = new String[capacity];
+        scores = new int[capacity];
+    }
+
+    /**
+     * Adds a result, if it is good enough to be kept.
+     *
+     * @param playerName The name of the player.
+     * @param playerScore The player's score.
+     * @return True if the result was kept.
+     */
+    public boolean add(String playerName, int playerScore) {
+
+        int capacity = names.length;
+        if (capacity == 0 || (size == capacity && playerScore <= scores[size - 1])) {
+            return false;
+        }
+
+        // Results of the same score that were played before stay in front:
+        int index = size;
+        while (index > 0 && scores[index - 1] < playerScore) {
+            index--;
+        }
+
+        int moved = Math.min(size, capacity - 1) - index;
+        System.arraycopy(names, index, names, index + 1, moved);
+        System.arraycopy(scores, index, scores, index + 1, moved);
+        names[index] = playerName;
+        scores[index] = playerScore;
+        size = Math.min(size + 1, capacity);
+        return true;
+
+    }
+
+    /**
+     * Returns a copy of the leaderboard.
+     */
+    public Leaderboard copy() {
+
+        Leaderboard copy = new Leaderboard(names.length);
+        System.arraycopy(names, 0, copy.names, 0, size);
+        System.arraycopy(scores, 0, copy.scores, 0, size);
+        copy.size = size;
+        copy.coveredLength = coveredLength;
+        return copy;
+
+    }
+
+    /**
+     * Removes every result.
+     */
+    public void clear() {
+
+        Arrays.fill(names, null);
+        size = 0;
+        coveredLength = 0;
+
+    }
+
+    /**
+     * Returns the results, best first, as "name: score" lines.
+     */
+    public List<String> getEntries() {
+
+        List<String> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(ScoreLog.formatEntry(names[i], scores[i]));
+        }
+        return entries;
+
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public int getScore(int index) {
+        return scores[index];
+    }
+
+    public long getCoveredLength() {
+        return coveredLength;
+    }
+
+    public void setCoveredLength(long coveredLength) {
+        this.coveredLength = coveredLength;
+    }
+
+    /**
+     * Writes the leaderboard to a temporary file and moves it over the file, so the file is
+     * always either the old or the new leaderboard.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(coveredLength);
+            out.writeInt(names.length);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeUTF(names[i]);
+                out.writeInt(scores[i]);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+    }
+
+    /**
+     * Reads a leaderboard from a file.
+     *
+     * @param file The file to read.
+     * @param capacity The number of results kept.
+     * @return The leaderboard, or null if the file does not exist or is not a leaderboard.
+     */
+    public static Leaderboard read(File file, int capacity) {
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                System.out.println(file + " is not a leaderboard, it is built again.");
+                return null;
+            }
+
+            Leaderboard leaderboard = new Leaderboard(capacity);
+            leaderboard.coveredLength = in.readLong();
+            if (in.readInt() != capacity) {
+                // A leaderboard of another size would miss results:
+                return null;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                leaderboard.add(in.readUTF(), in.readInt());
+            }
+            return leaderboard;
+
+        } catch (IOException e) {
+            System.out.println(file + " could not be read, it is built again: " + e);
+            return null;
+        }
+
+    }
+
+}
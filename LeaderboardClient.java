@@ -0,0 +1,91 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The `LeaderboardClient` class talks to a LeaderboardServer. Every request is sent in the
+ * background, so the game never waits for the network.
+ */
+public class LeaderboardClient {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+    private final HttpClient client;
+    private final URI topUri;
+    private final URI scoresUri;
+
+    /**
+     * Creates a client for a server.
+     *
+     * @param baseUrl The address of the server, for example "http://192.168.1.10:8420".
+     */
+    public LeaderboardClient(String baseUrl) {
+
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        topUri = URI.create(base + "/top");
+        scoresUri = URI.create(base + "/scores");
+        client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+    }
+
+    /**
+     * Sends the result of a round to the server in the background. A failure is only printed.
+     *
+     * @param playerName The name of the player.
+     * @param playerScore The player's score.
+     * @return A future that completes once the server answered or the request failed.
+     */
+    public CompletableFuture<Void> submit(String playerName, int playerScore) {
+
+        HttpRequest request = HttpRequest.newBuilder(scoresUri).timeout(TIMEOUT)
+            .POST(HttpRequest.BodyPublishers.ofString(ScoreLog.formatEntry(playerName, playerScore) + "\n", StandardCharsets.UTF_8))
+            .build();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).handle((response, error) -> {
+            if (error != null) {
+                System.out.println("Could not send the score to " + scoresUri + ": " + error);
+            } else if (response.statusCode() != 200) {
+                System.out.println("The leaderboard server refused the score: " + response.body().strip());
+            }
+            return null;
+        });
+
+    }
+
+    /**
+     * Fetches the best results from the server in the background.
+     *
+     * @return A future of the "name: score" lines, best first.
+     */
+    public CompletableFuture<List<String>> fetchTop() {
+
+        HttpRequest request = HttpRequest.newBuilder(topUri).timeout(TIMEOUT).GET().build();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("The leaderboard server answered " + response.statusCode());
+            }
+            return parseLines(response.body());
+        });
+
+    }
+
+    private static List<String> parseLines(String body) {
+
+        List<String> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+
+    }
+
+}
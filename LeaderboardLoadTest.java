@@ -0,0 +1,211 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The `LeaderboardLoadTest` class measures how many requests a LeaderboardServer answers per
+ * second. Several clients send GET /top and, now and then, POST /scores over kept-alive
+ * connections as fast as they can, and the latencies are collected in histograms. Without a URL
+ * a server with one thread and an empty score log is started on the loopback address.
+ *
+ * The clients speak the little HTTP/1.1 they need over plain sockets, so they take as little of
+ * the processor away from the server as possible.
+ *
+ * Usage: java LeaderboardLoadTest [--url=http://HOST:PORT] [--clients=4] [--seconds=5]
+ *                                 [--writes=0.05] [--server-threads=1]
+ */
+public class LeaderboardLoadTest {
+
+    public static void main(String[] args) throws Exception {
+
+        String url = null;
+        int clients = 4;
+        int seconds = 5;
+        double writes = 0.05;
+        int serverThreads = 1;
+
+        for (String arg : args) {
+            if (arg.startsWith("--url=")) {
+                url = arg.substring("--url=".length());
+            } else if (arg.startsWith("--clients=")) {
+                clients = Integer.parseInt(arg.substring("--clients=".length()));
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else if (arg.startsWith("--writes=")) {
+                writes = Double.parseDouble(arg.substring("--writes=".length()));
+            } else if (arg.startsWith("--server-threads=")) {
+                serverThreads = Integer.parseInt(arg.substring("--server-threads=".length()));
+            }
+        }
+
+        LeaderboardServer server = null;
+        ScoreLog scoreLog = null;
+        File directory = null;
+
+        if (url == null) {
+            directory = Files.createTempDirectory("leaderboard").toFile();
+            scoreLog = new ScoreLog(new File(directory, ScoreLog.LOG_FILE), null,
+                new File(directory, ScoreLog.LEADERBOARD_FILE), new File(directory, ScoreLog.STATS_FILE));
+            server = new LeaderboardServer(new InetSocketAddress("127.0.0.1", 0), scoreLog, serverThreads);
+            server.start();
+            url = "http://127.0.0.1:" + server.getPort();
+            System.out.println("Started a leaderboard server with " + serverThreads + " thread(s) on " + url);
+        }
+
+        URI uri = URI.create(url);
+
+        long duration = seconds * 1_000_000_000L;
+        Histogram[] getLatencies = new Histogram[clients];
+        Histogram[] postLatencies = new Histogram[clients];
+        AtomicLong errors = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+
+        // A short warm-up, so the measured part does not include the compiler and the first connections:
+        runClient(uri, 0, writes, 500_000_000L, new Histogram(), new Histogram(), errors);
+        errors.set(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            int clientIndex = i;
+            getLatencies[i] = new Histogram();
+            postLatencies[i] = new Histogram();
+            double writeRatio = writes;
+            Thread thread = new Thread(() -> runClient(uri, clientIndex, writeRatio, duration,
+                getLatencies[clientIndex], postLatencies[clientIndex], errors), "Load Test Client " + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Histogram gets = new Histogram();
+        Histogram posts = new Histogram();
+        for (int i = 0; i < clients; i++) {
+            gets.add(getLatencies[i]);
+            posts.add(postLatencies[i]);
+        }
+
+        long requests = gets.getCount() + posts.getCount();
+        System.out.printf("%d clients, %.1f s: %d requests, %.0f requests/s, %d errors%n",
+            clients, elapsed, requests, requests / elapsed, errors.get());
+        System.out.printf("GET /top      %8d   p50 %7.3f ms   p99 %7.3f ms   max %7.3f ms%n",
+            gets.getCount(), gets.percentile(0.5) / 1e6, gets.percentile(0.99) / 1e6, gets.getMax() / 1e6);
+        System.out.printf("POST /scores  %8d   p50 %7.3f ms   p99 %7.3f ms   max %7.3f ms%n",
+            posts.getCount(), posts.percentile(0.5) / 1e6, posts.percentile(0.99) / 1e6, posts.getMax() / 1e6);
+
+        if (server != null) {
+            System.out.printf("The cached leaderboard was built %d times for %d GET requests%n",
+                server.getTopBuilds(), server.getTopRequests());
+            server.stop();
+            scoreLog.close();
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+
+    }
+
+    /**
+     * Sends requests over one connection as fast as possible for the specified time. The
+     * connection is opened again after an error.
+     */
+    static void runClient(URI uri, int clientIndex, double writes, long duration,
+            Histogram getLatencies, Histogram postLatencies, AtomicLong errors) {
+
+        SplittableRandom random = new SplittableRandom(clientIndex);
+        String host = uri.getHost() + ":" + uri.getPort();
+        byte[] getTop = ("GET /top HTTP/1.1\r\nHost: " + host + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        long end = System.nanoTime() + duration;
+
+        while (System.nanoTime() < end) {
+
+            try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+
+                socket.setTcpNoDelay(true);
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+
+                while (System.nanoTime() < end) {
+
+                    boolean write = random.nextDouble() < writes;
+                    byte[] request = getTop;
+                    if (write) {
+                        byte[] body = (ScoreLog.formatEntry("load" + clientIndex + "-" + random.nextInt(1000),
+                            random.nextInt(100)) + "\n").getBytes(StandardCharsets.UTF_8);
+                        byte[] headers = ("POST /scores HTTP/1.1\r\nHost: " + host + "\r\nContent-Length: " + body.length
+                            + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+                        request = new byte[headers.length + body.length];
+                        System.arraycopy(headers, 0, request, 0, headers.length);
+                        System.arraycopy(body, 0, request, headers.length, body.length);
+                    }
+
+                    long start = System.nanoTime();
+                    out.write(request);
+                    out.flush();
+                    if (readResponse(in) != 200) {
+                        errors.incrementAndGet();
+                    }
+                    (write ? postLatencies : getLatencies).record(System.nanoTime() - start);
+                }
+
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            }
+        }
+
+    }
+
+    /**
+     * Reads one response and returns its status. The body is skipped using its Content-Length.
+     */
+    static int readResponse(InputStream in) throws IOException {
+
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+
+        int contentLength = 0;
+        String header;
+        while (!(header = readLine(in)).isEmpty()) {
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                contentLength = Integer.parseInt(header.substring(15).trim());
+            }
+        }
+
+        in.skipNBytes(contentLength);
+        return status;
+
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException("The server closed the connection");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+
+    }
+
+}
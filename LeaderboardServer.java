@@ -0,0 +1,258 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The `LeaderboardServer` class shares the leaderboard of a score log over HTTP, so several
+ * machines can show and add to the same leaderboard. It runs on the HTTP server of the JDK.
+ *
+ *   GET /top       returns the best results, one "name: score" line each, best first
+ *   POST /scores   adds the "name: score" lines of the body to the score log, names of at most
+ *                  40 characters without control characters
+ *
+ * The response of GET /top is kept in memory and only built again after a result was added.
+ *
+ * Usage: java LeaderboardServer [--port=8420] [--bind=ADDRESS] [--threads=N] [--dir=DIRECTORY]
+ */
+public class LeaderboardServer {
+
+    static final int DEFAULT_PORT = 8420;
+
+    static {
+        // Without it, small responses wait for the delayed acknowledgement of the client (about 40 ms):
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // The largest body of POST /scores that is accepted:
+    static final int MAX_BODY = 64 * 1024;
+
+    // The longest name of a result that is accepted, in characters:
+    static final int MAX_NAME_LENGTH = 40;
+
+    /**
+     * The `CachedTop` class is the response of GET /top for one version of the scores.
+     */
+    static class CachedTop {
+
+        final long version;
+        final byte[] body;
+
+        CachedTop(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+
+    }
+
+    private final ScoreLog scoreLog;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Counts the results added, a cached response of an older version is built again:
+    private final AtomicLong version = new AtomicLong();
+    private volatile CachedTop cachedTop;
+
+    private final AtomicLong topRequests = new AtomicLong();
+    private final AtomicLong topBuilds = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+
+    /**
+     * Creates a server for a score log. The server is started by start().
+     *
+     * @param address The address to listen on, port 0 picks a free port.
+     * @param scoreLog The score log the results are read from and added to.
+     * @param threads The number of threads handling the requests.
+     * @throws IOException If the address cannot be used.
+     */
+    public LeaderboardServer(InetSocketAddress address, ScoreLog scoreLog, int threads) throws IOException {
+
+        this.scoreLog = scoreLog;
+
+        server = HttpServer.create(address, 128);
+        server.createContext("/top", this::handleTop);
+        server.createContext("/scores", this::handleScores);
+
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Leaderboard Server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting up to a second for the requests being handled.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getTopRequests() {
+        return topRequests.get();
+    }
+
+    public long getTopBuilds() {
+        return topBuilds.get();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * Answers GET /top from the cache, building the response again if a result was added since.
+     */
+    private void handleTop(HttpExchange exchange) throws IOException {
+
+        try (exchange) {
+
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 405, "Use GET\n");
+                return;
+            }
+            topRequests.incrementAndGet();
+
+            CachedTop top = cachedTop;
+            long currentVersion = version.get();
+            if (top == null || top.version != currentVersion) {
+                // The version is read before the scores, so a result added meanwhile builds the response again next time:
+                StringBuilder body = new StringBuilder();
+                for (String entry : scoreLog.getTopScores()) {
+                    body.append(entry).append('\n');
+                }
+                top = new CachedTop(currentVersion, body.toString().getBytes(StandardCharsets.UTF_8));
+                cachedTop = top;
+                topBuilds.incrementAndGet();
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            // A length of 0 would mean a chunked response to the JDK server, -1 is an empty body:
+            exchange.sendResponseHeaders(200, top.body.length > 0 ? top.body.length : -1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(top.body);
+            }
+        }
+
+    }
+
+    /**
+     * Adds the results of POST /scores to the score log and invalidates the cached leaderboard.
+     */
+    private void handleScores(HttpExchange exchange) throws IOException {
+
+        try (exchange) {
+
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "Use POST\n");
+                return;
+            }
+
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY + 1);
+            }
+            if (body.length > MAX_BODY) {
+                respond(exchange, 413, "Too many scores\n");
+                return;
+            }
+
+            // Every line is checked first, so a bad request adds nothing:
+            List<String> entries = new ArrayList<>();
+            for (String line : new String(body, StandardCharsets.UTF_8).split("\n")) {
+                line = line.strip();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (ScoreLog.parseScore(line) == ScoreLog.NO_SCORE) {
+                    respond(exchange, 400, "Not a score: " + line + "\n");
+                    return;
+                }
+                String name = ScoreLog.parseName(line);
+                if (name.length() > MAX_NAME_LENGTH) {
+                    respond(exchange, 400, "Name longer than " + MAX_NAME_LENGTH + " characters\n");
+                    return;
+                }
+                if (name.chars().anyMatch(Character::isISOControl)) {
+                    respond(exchange, 400, "Name with control characters: " + name.replaceAll("\\p{Cntrl}", "?") + "\n");
+                    return;
+                }
+                entries.add(line);
+            }
+
+            for (String entry : entries) {
+                scoreLog.append(ScoreLog.parseName(entry), ScoreLog.parseScore(entry));
+            }
+            if (!entries.isEmpty()) {
+                version.incrementAndGet();
+                submitted.addAndGet(entries.size());
+            }
+
+            respond(exchange, 200, "Added " + entries.size() + "\n");
+        }
+
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        int port = DEFAULT_PORT;
+        String bind = "0.0.0.0";
+        int threads = 2;
+        File directory = new File(".");
+
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--bind=")) {
+                bind = arg.substring("--bind=".length());
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--dir=")) {
+                directory = new File(arg.substring("--dir=".length()));
+            }
+        }
+
+        ScoreLog scoreLog = new ScoreLog(new File(directory, ScoreLog.LOG_FILE), new File(directory, ScoreLog.LEGACY_FILE),
+            new File(directory, ScoreLog.LEADERBOARD_FILE), new File(directory, ScoreLog.STATS_FILE));
+        Runtime.getRuntime().addShutdownHook(new Thread(scoreLog::close, "Score Log Shutdown"));
+
+        LeaderboardServer server = new LeaderboardServer(new InetSocketAddress(bind, port), scoreLog, threads);
+        server.start();
+        System.out.println("Leaderboard server listening on " + bind + ":" + server.getPort());
+
+    }
+
+}
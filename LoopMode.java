@@ -0,0 +1,35 @@
+/**
+ * The `LoopMode` enum lists the ways the game can be rendered. In both modes, the round is
+ * advanced by a SimulationLoop on its own thread.
+ */
+public enum LoopMode {
+
+    /**
+     * Swing repaints the damaged regions on the event dispatch thread after every tick. The name is
+     * kept from when a Swing timer advanced the game.
+     */
+    TIMER,
+
+    /**
+     * A dedicated thread renders the game as often as possible through a BufferStrategy.
+     */
+    ACTIVE;
+
+    /**
+     * Finds the loop mode with the specified name, ignoring the case.
+     *
+     * @param name The name of the loop mode.
+     * @return The loop mode, or TIMER if the name is unknown.
+     */
+    public static LoopMode parse(String name) {
+
+        for (LoopMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return TIMER;
+
+    }
+
+}
@@ -1,42 +1,218 @@
-
+import java.awt.CardLayout;
 import javax.swing.*;
 
 
 /**
- * The MainFrame class represents the main application window for the fishing game.
+ * The MainFrame class represents the one window of the fishing game. The starting screen, the
+ * game and the game over screen are built once and shown one at a time through a CardLayout,
+ * so moving between them never opens or closes a window.
+ *
+ * Every switch is timed from the request until the new screen has painted, and reported.
  */
 public class MainFrame extends JFrame {
 
+    static final String STARTING_SCREEN = "starting";
+    static final String GAME_SCREEN = "game";
+    static final String GAME_OVER_SCREEN = "gameOver";
+
+    // A switch that takes longer than a frame at 60 Hz is reported as slow:
+    static final long FRAME_NANOS = 16_666_667L;
+
     int windowWidth;
     int windowHeight;
-    JLabel label;
+
+    CardLayout cardLayout = new CardLayout();
+    JPanel screens = new JPanel(cardLayout);
+
+    StartingScreen startingScreen;
+    GamePanel gamePanel;
+    GameOverScreen gameOverScreen;
+
+    // The screen being switched to and when the switch was requested, until it has painted:
+    private JComponent pendingScreen;
+    private String pendingName;
+    private long switchStart;
+    private boolean gameShownOnce;
+
+    // The times of the switches, in nanoseconds:
+    Histogram switchTimes = new Histogram();
+
     /**
-     * Constructs a new MainFrame for the fishing game.
+     * Constructs the window of the fishing game and shows the starting screen.
      *
      * @param windowWith  The width of the game window.
      * @param windowHeight The height of the game window.
-     * @param playerName  The name of the player.
      */
-    MainFrame(int windowWith, int windowHeight, String playerName){
+    MainFrame(int windowWith, int windowHeight){
+        this(windowWith, windowHeight, null);
+    }
+
+    /**
+     * Constructs the window of the fishing game. With a recording, the recorded round is
+     * replayed right away, otherwise the starting screen is shown.
+     *
+     * @param windowWith  The width of the game window.
+     * @param windowHeight The height of the game window.
+     * @param replay  The recording to replay, or null to play normally.
+     */
+    MainFrame(int windowWith, int windowHeight, Recording replay){
 
         this.windowWidth = windowWith;
         this.windowHeight = windowHeight;
 
         this.setSize(windowWidth, windowHeight);
         this.setTitle("Adventure of a fisherman");
-        this.setLayout(null);
         this.setResizable(false);
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        this.setVisible(true);
+        this.setContentPane(screens);
         this.setLocationRelativeTo(null);
-        
-        GamePanel gamePanel = new GamePanel(windowWidth, windowHeight, playerName);
 
+        if (replay != null) {
+            setGamePanel(new GamePanel(windowWidth, windowHeight, "Replay", replay));
+            this.setVisible(true);
+            playAgain();
+        } else {
+            startingScreen = new StartingScreen(this);
+            screens.add(startingScreen, STARTING_SCREEN);
+            this.setVisible(true);
+            showStartingScreen();
+        }
+
+    }
+
+    /**
+     * Builds the game and the game over screens if they do not exist yet. They are built once
+     * the assets are loaded, so no file is read while building them.
+     */
+    void prepareScreens() {
+
+        if (gamePanel == null) {
+            setGamePanel(new GamePanel(windowWidth, windowHeight, ""));
+        }
+        if (gameOverScreen == null) {
+            gameOverScreen = new GameOverScreen(this);
+            screens.add(gameOverScreen, GAME_OVER_SCREEN);
+        }
+
+    }
+
+    /**
+     * Replaces the game screen. The new panel waits for startRound() before it starts playing.
+     */
+    private void setGamePanel(GamePanel panel) {
+
+        if (gamePanel != null) {
+            gamePanel.stopLoop();
+            screens.remove(gamePanel);
+        }
+        gamePanel = panel;
+        gamePanel.mainFrame = this;
+        gamePanel.idle();
         gamePanel.setFocusable(true);
+        screens.add(gamePanel, GAME_SCREEN);
+
+    }
+
+    /**
+     * Shows the starting screen.
+     */
+    void showStartingScreen() {
+
+        if (startingScreen == null) {
+            // The window was opened for a replay:
+            startingScreen = new StartingScreen(this);
+            screens.add(startingScreen, STARTING_SCREEN);
+        }
+        showScreen(STARTING_SCREEN, startingScreen);
+        startingScreen.showing();
+
+    }
+
+    /**
+     * Shows the game and starts a new round.
+     *
+     * @param playerName The name of the player.
+     */
+    void startRound(String playerName) {
+
+        prepareScreens();
+        if (gamePanel.replay != null) {
+            // After a replay, the player plays a normal round:
+            setGamePanel(new GamePanel(windowWidth, windowHeight, playerName));
+        }
+
+        gamePanel.playerName = playerName;
+        playAgain();
+
+    }
+
+    /**
+     * Shows the game and starts the round over with the same player, or replays the recording again.
+     */
+    void playAgain() {
+
+        showScreen(GAME_SCREEN, gamePanel);
+        gamePanel.resetRound();
+
+    }
+
+    /**
+     * Shows the result of the round that ended.
+     *
+     * @param playerName The name of the player.
+     * @param timeUp True if the time ran out, false if the player ran out of baits.
+     * @param playerScore The player's score.
+     * @param rodsLeft The number of baits left.
+     */
+    void showGameOver(String playerName, boolean timeUp, int playerScore, int rodsLeft) {
+
+        prepareScreens();
+        gameOverScreen.showResult(playerName, timeUp, playerScore, rodsLeft);
+        showScreen(GAME_OVER_SCREEN, gameOverScreen);
+
+    }
+
+    /**
+     * Switches to a screen and starts timing the switch.
+     */
+    private void showScreen(String name, JComponent screen) {
+
+        synchronized (this) {
+            pendingScreen = screen;
+            pendingName = name;
+            switchStart = System.nanoTime();
+        }
+        cardLayout.show(screens, name);
+
+    }
+
+    /**
+     * Called by every screen after it painted. The first paint of the screen that was switched
+     * to ends the timing of the switch. The game calls it from the thread of the active loop.
+     *
+     * @param screen The screen that painted.
+     */
+    void screenShown(JComponent screen) {
+
+        long nanos;
+        String name;
+        synchronized (this) {
+            if (screen != pendingScreen) {
+                return;
+            }
+            nanos = System.nanoTime() - switchStart;
+            name = pendingName;
+            pendingScreen = null;
+            switchTimes.record(nanos);
+            if (screen == gamePanel && !gameShownOnce) {
+                gameShownOnce = true;
+                FishGame.logStartup("first game frame");
+            }
+        }
+
+        System.out.printf("[screen] switched to %s in %.2f ms%s%n", name, nanos / 1e6,
+            nanos > FRAME_NANOS ? " (longer than a frame)" : "");
 
-        this.add(gamePanel);
-        
-        
     }
 
-}
\ No newline at end of file
+}
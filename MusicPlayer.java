@@ -0,0 +1,520 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * The `MusicPlayer` class streams the background music. A track is never loaded as a whole: a
+ * decoder thread reads a little of the file at a time, converts it to 16-bit stereo samples at
+ * the rate of the line and puts it into a small ring buffer, and a player thread writes the ring
+ * buffer to the line. The memory used is the same whatever the length of the track.
+ *
+ * Tracks loop until another track is played or the music is stopped. A new track fades in while
+ * the old one fades out.
+ */
+public class MusicPlayer {
+
+    static final float SAMPLE_RATE = SoundEngine.SAMPLE_RATE;
+    static final int CHANNELS = 2;
+
+    // The number of frames decoded or written at once, about 6 ms:
+    static final int BLOCK_FRAMES = 256;
+
+    // The size of the ring buffer between the threads, about 93 ms, a power of two:
+    static final int RING_FRAMES = 4096;
+
+    // The size of the buffer of the line, about 46 ms:
+    static final int LINE_BUFFER_FRAMES = 2048;
+
+    // The length of a crossfade and of fading out when the music stops:
+    static final int FADE_FRAMES = (int) SAMPLE_RATE;
+
+    private static MusicPlayer defaultPlayer;
+
+    /**
+     * The `Request` class is a track asked for by the game, or the music being stopped if the path is null.
+     */
+    static class Request {
+
+        final String path;
+        final long time = System.nanoTime();
+
+        Request(String path) {
+            this.path = path;
+        }
+
+    }
+
+    /**
+     * The `Track` class decodes a music file piece by piece into stereo samples at the rate of
+     * the line, resampling it linearly and opening the file again when it ends.
+     */
+    static class Track {
+
+        final String path;
+
+        private AudioInputStream stream;
+        private int sourceChannels;
+        private double step;
+
+        // The bytes read from the file and not used yet:
+        private final byte[] buffer = new byte[16 * 1024];
+        private int bufferPosition;
+        private int bufferLength;
+
+        // The two source frames the current output frame lies between:
+        private final int[] previous = new int[CHANNELS];
+        private final int[] next = new int[CHANNELS];
+        private double fraction;
+        private boolean ended;
+
+        /**
+         * Opens a track.
+         *
+         * @param path The path of the music, on the class path or in the working directory.
+         * @throws IOException If the file cannot be read.
+         * @throws UnsupportedAudioFileException If the file is not a sound the JDK can decode.
+         */
+        Track(String path) throws IOException, UnsupportedAudioFileException {
+
+            this.path = path;
+            open();
+            readFrame(previous);
+            readFrame(next);
+
+        }
+
+        private void open() throws IOException, UnsupportedAudioFileException {
+
+            AudioInputStream source = openStream(path);
+            AudioFormat format = source.getFormat();
+            sourceChannels = format.getChannels();
+            step = format.getSampleRate() / SAMPLE_RATE;
+            stream = AudioSystem.getAudioInputStream(
+                new AudioFormat(format.getSampleRate(), 16, sourceChannels, true, false), source);
+            bufferPosition = 0;
+            bufferLength = 0;
+
+        }
+
+        /**
+         * Decodes the next frames, starting over at the end of the file.
+         *
+         * @param out The interleaved stereo samples.
+         * @param frames The number of frames to decode.
+         * @return false if the file cannot be read any longer, the rest of the frames is silent then.
+         */
+        boolean read(int[] out, int frames) {
+
+            for (int frame = 0; frame < frames; frame++) {
+
+                while (fraction >= 1 && !ended) {
+                    System.arraycopy(next, 0, previous, 0, CHANNELS);
+                    readFrame(next);
+                    fraction -= 1;
+                }
+                if (ended) {
+                    java.util.Arrays.fill(out, frame * CHANNELS, frames * CHANNELS, 0);
+                    return false;
+                }
+
+                for (int channel = 0; channel < CHANNELS; channel++) {
+                    out[frame * CHANNELS + channel] =
+                        (int) Math.round(previous[channel] + (next[channel] - previous[channel]) * fraction);
+                }
+                fraction += step;
+            }
+            return true;
+
+        }
+
+        /**
+         * Reads one source frame, copying a mono frame to both channels.
+         */
+        private void readFrame(int[] frame) {
+
+            int frameSize = 2 * sourceChannels;
+            try {
+                if (bufferLength - bufferPosition < frameSize && !fill(frameSize)) {
+                    // The end of the file, the track loops:
+                    stream.close();
+                    open();
+                    if (!fill(frameSize)) {
+                        ended = true;
+                        return;
+                    }
+                }
+            } catch (IOException | UnsupportedAudioFileException e) {
+                e.printStackTrace();
+                ended = true;
+                return;
+            }
+
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                int index = bufferPosition + 2 * Math.min(channel, sourceChannels - 1);
+                frame[channel] = (short) ((buffer[index] & 0xFF) | (buffer[index + 1] << 8));
+            }
+            bufferPosition += frameSize;
+
+        }
+
+        /**
+         * Reads more of the file after the bytes not used yet.
+         *
+         * @return false if less than a frame is left in the file.
+         */
+        private boolean fill(int frameSize) throws IOException {
+
+            System.arraycopy(buffer, bufferPosition, buffer, 0, bufferLength - bufferPosition);
+            bufferLength -= bufferPosition;
+            bufferPosition = 0;
+
+            while (bufferLength < frameSize) {
+                int read = stream.read(buffer, bufferLength, buffer.length - bufferLength);
+                if (read < 0) {
+                    return false;
+                }
+                bufferLength += read;
+            }
+            return true;
+
+        }
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+    }
+
+    private final AtomicReference<Request> request = new AtomicReference<>();
+
+    // Interleaved stereo samples, written by the decoder thread and read by the player thread:
+    private final short[] ring = new short[RING_FRAMES * CHANNELS];
+    private final AtomicLong ringHead = new AtomicLong();
+    private final AtomicLong ringTail = new AtomicLong();
+
+    // The tracks, only used by the decoder thread:
+    private Track current;
+    private Track fading;
+    private int fadePosition;
+
+    // The frame of the ring buffer where the latest track starts, and when it was asked for:
+    private volatile long startFrame = -1;
+    private volatile long requestTime;
+    private volatile long startLatency = -1;
+
+    // The path of the track asked for last, cleared again if it cannot be opened:
+    private final AtomicReference<String> playing = new AtomicReference<>();
+    private volatile boolean decoding;
+    private volatile long underruns;
+
+    private SourceDataLine line;
+    private Thread decoderThread;
+    private Thread playerThread;
+    private volatile boolean running;
+
+    /**
+     * Returns the music player of the game, opening the audio line the first time.
+     */
+    public static synchronized MusicPlayer getDefault() {
+
+        if (defaultPlayer == null) {
+            defaultPlayer = new MusicPlayer();
+            defaultPlayer.start();
+        }
+        return defaultPlayer;
+
+    }
+
+    /**
+     * Plays a track in a loop, fading out the track that was playing. Returns right away, the
+     * file is opened on the decoder thread. Playing the track that is already playing does nothing.
+     *
+     * @param path The path of the music, on the class path or in the working directory.
+     */
+    public void play(String path) {
+
+        if (running && !path.equals(playing.get())) {
+            playing.set(path);
+            request.set(new Request(path));
+            LockSupport.unpark(decoderThread);
+        }
+
+    }
+
+    /**
+     * Fades out the music.
+     */
+    public void stop() {
+
+        if (running && playing.get() != null) {
+            playing.set(null);
+            request.set(new Request(null));
+            LockSupport.unpark(decoderThread);
+        }
+
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the time from the latest call of play() until its first frame was written to the line.
+     *
+     * @return The time in nanoseconds, or -1 if the track has not started yet.
+     */
+    public long getStartLatency() {
+        return startLatency;
+    }
+
+    /**
+     * Returns how many times the line was given silence because the decoder fell behind.
+     */
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    /**
+     * Opens the audio line and starts the threads. Without an audio device, no music is played.
+     */
+    void start() {
+
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, LINE_BUFFER_FRAMES * format.getFrameSize());
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.out.println("No audio line is available, the music is turned off: " + e.getMessage());
+            return;
+        }
+
+        running = true;
+
+        decoderThread = new Thread(this::decodeLoop, "Music Decoder");
+        decoderThread.setDaemon(true);
+        decoderThread.start();
+
+        playerThread = new Thread(this::playLoop, "Music Player");
+        playerThread.setDaemon(true);
+        playerThread.setPriority(Thread.MAX_PRIORITY);
+        playerThread.start();
+
+    }
+
+    /**
+     * Decodes the tracks into the ring buffer, crossfading when a new track was asked for. Waits
+     * while the ring buffer is full and while no music plays.
+     */
+    private void decodeLoop() {
+
+        int[] currentBlock = new int[BLOCK_FRAMES * CHANNELS];
+        int[] fadingBlock = new int[BLOCK_FRAMES * CHANNELS];
+
+        while (running) {
+
+            Request next = request.getAndSet(null);
+            if (next != null) {
+                startTrack(next);
+            }
+
+            if (current == null && fading == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            long tail = ringTail.get();
+            if (RING_FRAMES - (tail - ringHead.get()) < BLOCK_FRAMES) {
+                // Wakes up about when the player thread has written a block:
+                LockSupport.parkNanos(this, 2_000_000L);
+                continue;
+            }
+
+            boolean currentPlays = current != null && current.read(currentBlock, BLOCK_FRAMES);
+            boolean fadingPlays = fading != null && fading.read(fadingBlock, BLOCK_FRAMES);
+
+            for (int frame = 0; frame < BLOCK_FRAMES; frame++) {
+
+                // The new track fades in while the old one fades out:
+                double gain = fading == null ? 1 : Math.min(1.0, (double) (fadePosition + frame) / FADE_FRAMES);
+                int index = (int) ((tail + frame) & (RING_FRAMES - 1)) * CHANNELS;
+
+                for (int channel = 0; channel < CHANNELS; channel++) {
+                    double sample = 0;
+                    if (currentPlays) {
+                        sample += currentBlock[frame * CHANNELS + channel] * gain;
+                    }
+                    if (fadingPlays) {
+                        sample += fadingBlock[frame * CHANNELS + channel] * (1 - gain);
+                    }
+                    ring[index + channel] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(sample)));
+                }
+            }
+            // Publishes the block to the player thread:
+            ringTail.lazySet(tail + BLOCK_FRAMES);
+
+            if (fading != null) {
+                fadePosition += BLOCK_FRAMES;
+                if (fadePosition >= FADE_FRAMES || !fadingPlays) {
+                    fading.close();
+                    fading = null;
+                }
+            }
+            if (current != null && !currentPlays) {
+                // The track cannot be read any longer, unless another one was asked for meanwhile
+                // asking for it again opens it again:
+                playing.compareAndSet(current.path, null);
+                current.close();
+                current = null;
+            }
+            decoding = current != null || fading != null;
+        }
+
+    }
+
+    /**
+     * Opens the track that was asked for and starts fading out the one playing.
+     */
+    private void startTrack(Request next) {
+
+        if (fading != null) {
+            // A fade was still going on, the track fading out is cut off:
+            fading.close();
+        }
+        fading = current;
+        fadePosition = 0;
+        current = null;
+        decoding = fading != null;
+
+        if (next.path != null) {
+            try {
+                current = new Track(next.path);
+                requestTime = next.time;
+                startLatency = -1;
+                startFrame = ringTail.get();
+                decoding = true;
+            } catch (IOException | UnsupportedAudioFileException e) {
+                e.printStackTrace();
+                // Unless another track was asked for meanwhile, asking for this one again tries again:
+                playing.compareAndSet(next.path, null);
+            }
+        }
+
+    }
+
+    /**
+     * Writes the ring buffer to the line block by block. Writing waits while the line is full,
+     * which keeps the loop at the pace of the sound card. Silence is written while the ring buffer is empty.
+     */
+    private void playLoop() {
+
+        byte[] block = new byte[BLOCK_FRAMES * CHANNELS * 2];
+
+        while (running) {
+
+            long head = ringHead.get();
+            int frames = (int) Math.min(BLOCK_FRAMES, ringTail.get() - head);
+
+            for (int frame = 0; frame < frames; frame++) {
+                int index = (int) ((head + frame) & (RING_FRAMES - 1)) * CHANNELS;
+                for (int channel = 0; channel < CHANNELS; channel++) {
+                    short sample = ring[index + channel];
+                    int offset = (frame * CHANNELS + channel) * 2;
+                    block[offset] = (byte) sample;
+                    block[offset + 1] = (byte) (sample >> 8);
+                }
+            }
+            java.util.Arrays.fill(block, frames * CHANNELS * 2, block.length, (byte) 0);
+            // Frees the frames for the decoder thread:
+            ringHead.lazySet(head + frames);
+
+            if (startLatency < 0 && startFrame >= 0 && head + frames > startFrame) {
+                startLatency = System.nanoTime() - requestTime;
+            }
+            if (frames < BLOCK_FRAMES && decoding) {
+                underruns++;
+            }
+            LockSupport.unpark(decoderThread);
+
+            line.write(block, 0, block.length);
+        }
+
+        line.drain();
+        line.close();
+
+    }
+
+    /**
+     * Opens a sound from the class path, or from the working directory if it is not on the class path.
+     */
+    private static AudioInputStream openStream(String path) throws IOException, UnsupportedAudioFileException {
+
+        InputStream in = MusicPlayer.class.getResourceAsStream(path);
+        if (in == null) {
+            in = new FileInputStream(new File(path));
+        }
+        return AudioSystem.getAudioInputStream(new BufferedInputStream(in));
+
+    }
+
+    /**
+     * Plays a track and reports how fast it started and how often the line ran dry.
+     *
+     * Usage: java MusicPlayer FILE [--seconds=10] [--then=FILE]
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        String path = null;
+        String then = null;
+        int seconds = 10;
+
+        for (String arg : args) {
+            if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else if (arg.startsWith("--then=")) {
+                then = arg.substring("--then=".length());
+            } else {
+                path = arg;
+            }
+        }
+        if (path == null) {
+            System.out.println("Usage: java MusicPlayer FILE [--seconds=10] [--then=FILE]");
+            return;
+        }
+
+        MusicPlayer player = getDefault();
+        if (!player.isRunning()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        player.play(path);
+        System.out.printf("play() returned after %.3f ms%n", (System.nanoTime() - start) / 1e6);
+
+        Thread.sleep(seconds * 500L);
+        if (then != null) {
+            player.play(then);
+        }
+        Thread.sleep(seconds * 500L);
+
+        System.out.printf("The music started %.3f ms after play(), %d underruns%n",
+            player.getStartLatency() / 1e6, player.getUnderruns());
+
+    }
+
+}
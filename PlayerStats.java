@@ -0,0 +1,493 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The `PlayerStats` class keeps the games played, the best, last and total score of every player
+ * in a memory-mapped file. The file is a hash table of fixed-size records with open addressing,
+ * so the statistics of a player are found and updated in place without reading the rest of the
+ * file. When the table gets too full, it is copied into a table twice the size, which is written
+ * to a temporary file and moved over the file once it is complete. If the file cannot be
+ * replaced, the new table is kept in memory and the file keeps the last complete table, whose
+ * covered length tells the ScoreLog which results to add again at the next start.
+ *
+ * Only one thread may change the statistics, any thread may read them. The table is grown and
+ * the file is written and forced without holding the monitor, so reading the statistics only
+ * waits while a record is changed in memory, never for the disk.
+ *
+ * The header holds the magic "FGPS", the version, the number of slots, the number of players and
+ * the length of the score log the statistics cover. Every record holds the slot hash, the games
+ * played, the best, last and total score, a 64-bit hash of the whole name and the name in UTF-8,
+ * cut to 31 bytes. Players are told apart by the hash together with the cut name, so two long
+ * names that start the same get records of their own.
+ */
+public class PlayerStats {
+
+    static final int MAGIC = 0x46475053;
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 64;
+    static final int NAME_BYTES = 31;
+
+    static final int INITIAL_CAPACITY = 1024;
+
+    // The table is made larger once more than this part of the slots is used:
+    static final double MAX_LOAD = 0.7;
+
+    // Offsets of the header:
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int COVERED_OFFSET = 16;
+
+    // Offsets of the fields of a record:
+    private static final int HASH = 0;
+    private static final int GAMES = 4;
+    private static final int BEST = 8;
+    private static final int LAST = 12;
+    private static final int TOTAL = 16;
+    private static final int NAME_HASH = 24;
+    private static final int NAME_LENGTH = 32;
+    private static final int NAME = 33;
+
+    /**
+     * The `Record` class is a copy of the statistics of one player.
+     */
+    public static class Record {
+
+        final String name;
+        final int games;
+        final int best;
+        final int last;
+        final long total;
+
+        Record(String name, int games, int best, int last, long total) {
+            this.name = name;
+            this.games = games;
+            this.best = best;
+            this.last = last;
+            this.total = total;
+        }
+
+        /**
+         * Returns the statistics after one more game.
+         *
+         * @param score The score of the game.
+         * @return The new statistics.
+         */
+        Record plus(int score) {
+            return new Record(name, games + 1, games == 0 ? score : Math.max(best, score), score, total + score);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getBest() {
+            return best;
+        }
+
+        public int getLast() {
+            return last;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public double getAverage() {
+            return games == 0 ? 0 : (double) total / games;
+        }
+
+    }
+
+    private final File file;
+    // The mapped file, or a table in memory if the file could not be replaced:
+    private volatile ByteBuffer table;
+    private int capacity;
+    private int count;
+
+    /**
+     * Opens the statistics file, creating it if it does not exist or is not a statistics file.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be opened or created.
+     */
+    public PlayerStats(File file) throws IOException {
+
+        this.file = file;
+
+        if (file.exists()) {
+            MappedByteBuffer existing = map(file, -1);
+            if (existing != null && existing.getInt(0) == MAGIC && existing.getInt(4) == VERSION) {
+                table = existing;
+                capacity = table.getInt(CAPACITY_OFFSET);
+                count = table.getInt(COUNT_OFFSET);
+                if (Integer.bitCount(capacity) == 1 && table.capacity() == HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+                    return;
+                }
+            }
+            System.out.println(file + " is not a player statistics file, it is built again.");
+        }
+
+        table = install(emptyTable(INITIAL_CAPACITY));
+        capacity = INITIAL_CAPACITY;
+        count = 0;
+
+    }
+
+    /**
+     * Adds the score of a game to the statistics of a player.
+     *
+     * @param playerName The name of the player.
+     * @param playerScore The score of the game.
+     */
+    public void record(String playerName, int playerScore) {
+
+        // The player may be new, the table is grown before the monitor is taken:
+        reserve(1);
+
+        synchronized (this) {
+            update(playerName, playerScore);
+        }
+
+    }
+
+    private void update(String playerName, int playerScore) {
+
+        byte[] name = encode(playerName);
+        long nameHash = nameHash(playerName);
+        int slot = find(table, capacity, name, nameHash);
+
+        if (slot < 0) {
+            slot = insert(table, capacity, name, nameHash);
+            count++;
+            table.putInt(COUNT_OFFSET, count);
+        }
+
+        int record = HEADER_SIZE + slot * RECORD_SIZE;
+        int games = table.getInt(record + GAMES);
+        table.putInt(record + BEST, games == 0 ? playerScore : Math.max(table.getInt(record + BEST), playerScore));
+        table.putInt(record + LAST, playerScore);
+        table.putLong(record + TOTAL, table.getLong(record + TOTAL) + playerScore);
+        table.putInt(record + GAMES, games + 1);
+
+    }
+
+    /**
+     * Returns the statistics of a player.
+     *
+     * @param playerName The name of the player.
+     * @return A copy of the statistics, or null if the player has not played yet.
+     */
+    public synchronized Record get(String playerName) {
+
+        byte[] name = encode(playerName);
+        int slot = find(table, capacity, name, nameHash(playerName));
+        if (slot < 0) {
+            return null;
+        }
+
+        int record = HEADER_SIZE + slot * RECORD_SIZE;
+        return new Record(playerName, table.getInt(record + GAMES), table.getInt(record + BEST),
+            table.getInt(record + LAST), table.getLong(record + TOTAL));
+
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getCoveredLength() {
+        return table.getLong(COVERED_OFFSET);
+    }
+
+    public synchronized void setCoveredLength(long coveredLength) {
+        table.putLong(COVERED_OFFSET, coveredLength);
+    }
+
+    /**
+     * Writes the changed records to the disk. The monitor is not held meanwhile, so the
+     * statistics can be read while the disk is busy.
+     */
+    public void force() {
+
+        ByteBuffer current = table;
+        if (current instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) current).force();
+        }
+
+    }
+
+    /**
+     * Removes every player.
+     */
+    public void clear() {
+
+        ByteBuffer newTable = store(emptyTable(INITIAL_CAPACITY));
+        synchronized (this) {
+            table = newTable;
+            capacity = INITIAL_CAPACITY;
+            count = 0;
+        }
+
+    }
+
+    /**
+     * Makes room for the specified number of new players, growing the table if it would get too
+     * full. The new table is built and stored without holding the monitor, the readers keep
+     * using the old one until it is swapped in.
+     *
+     * @param newPlayers The most players that are about to be added.
+     */
+    public void reserve(int newPlayers) {
+
+        int newCapacity = capacity;
+        while (count + newPlayers > newCapacity * MAX_LOAD) {
+            newCapacity *= 2;
+        }
+        if (newCapacity == capacity) {
+            return;
+        }
+
+        // Only this thread changes the table, so it is copied without the monitor:
+        ByteBuffer newTable = store(copyInto(newCapacity));
+        synchronized (this) {
+            table = newTable;
+            capacity = newCapacity;
+        }
+
+    }
+
+    /**
+     * Copies every player into a new table in memory, with the count and the covered length.
+     */
+    private ByteBuffer copyInto(int newCapacity) {
+
+        ByteBuffer newTable = emptyTable(newCapacity);
+
+        byte[] name = new byte[NAME_BYTES];
+        for (int slot = 0; slot < capacity; slot++) {
+            int record = HEADER_SIZE + slot * RECORD_SIZE;
+            if (table.getInt(record + HASH) == 0) {
+                continue;
+            }
+            long nameHash = table.getLong(record + NAME_HASH);
+            int length = table.get(record + NAME_LENGTH);
+            table.get(record + NAME, name, 0, length);
+            byte[] key = new byte[length];
+            System.arraycopy(name, 0, key, 0, length);
+
+            int newRecord = HEADER_SIZE + insert(newTable, newCapacity, key, nameHash) * RECORD_SIZE;
+            newTable.putInt(newRecord + GAMES, table.getInt(record + GAMES));
+            newTable.putInt(newRecord + BEST, table.getInt(record + BEST));
+            newTable.putInt(newRecord + LAST, table.getInt(record + LAST));
+            newTable.putLong(newRecord + TOTAL, table.getLong(record + TOTAL));
+        }
+
+        newTable.putInt(COUNT_OFFSET, count);
+        newTable.putLong(COVERED_OFFSET, table.getLong(COVERED_OFFSET));
+        return newTable;
+
+    }
+
+    /**
+     * Returns an empty table of the specified number of slots, in memory.
+     */
+    private static ByteBuffer emptyTable(int capacity) {
+
+        ByteBuffer newTable = ByteBuffer.allocate(HEADER_SIZE + capacity * RECORD_SIZE);
+        newTable.putInt(0, MAGIC);
+        newTable.putInt(4, VERSION);
+        newTable.putInt(CAPACITY_OFFSET, capacity);
+        return newTable;
+
+    }
+
+    /**
+     * Replaces the file with a complete table and returns the mapped file. If the file cannot be
+     * replaced, e.g. because the system does not allow replacing a mapped file, the table is
+     * kept in memory and returned instead, and the file keeps the table it had.
+     */
+    private ByteBuffer store(ByteBuffer newTable) {
+
+        try {
+            return install(newTable);
+        } catch (IOException e) {
+            System.out.println(file + " could not be replaced, the player statistics are kept in memory"
+                + " until the game exits: " + e);
+            return newTable;
+        }
+
+    }
+
+    /**
+     * Writes a complete table to a temporary file, forces it to the disk, moves it over the
+     * file and maps it. The file is always a complete table, the old one or the new one.
+     */
+    private MappedByteBuffer install(ByteBuffer newTable) throws IOException {
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+                ByteBuffer contents = newTable.duplicate();
+                contents.clear();
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        MappedByteBuffer mapped = map(file, newTable.capacity());
+        if (mapped == null) {
+            throw new IOException(file + " is too large to map");
+        }
+        return mapped;
+
+    }
+
+    /**
+     * Maps a file into memory.
+     *
+     * @param file The file.
+     * @param size The size to map, or -1 to map the whole file.
+     * @return The mapped file, or null if the file is too large.
+     */
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long mappedSize = size >= 0 ? size : channel.size();
+            if (mappedSize < HEADER_SIZE || mappedSize > Integer.MAX_VALUE) {
+                return null;
+            }
+            // The mapping stays valid after the channel is closed:
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+        }
+
+    }
+
+    /**
+     * Returns the slot of a name, or -1 if the name is not in the table.
+     */
+    private static int find(ByteBuffer table, int capacity, byte[] name, long nameHash) {
+
+        int hash = slotHash(nameHash);
+        int mask = capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int record = HEADER_SIZE + slot * RECORD_SIZE;
+            int slotHash = table.getInt(record + HASH);
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == hash && table.getLong(record + NAME_HASH) == nameHash && nameEquals(table, record, name)) {
+                return slot;
+            }
+        }
+
+    }
+
+    /**
+     * Takes the first free slot for a name that is not in the table yet.
+     */
+    private static int insert(ByteBuffer table, int capacity, byte[] name, long nameHash) {
+
+        int hash = slotHash(nameHash);
+        int mask = capacity - 1;
+        int slot = hash & mask;
+        while (table.getInt(HEADER_SIZE + slot * RECORD_SIZE + HASH) != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        int record = HEADER_SIZE + slot * RECORD_SIZE;
+        table.putLong(record + NAME_HASH, nameHash);
+        table.put(record + NAME_LENGTH, (byte) name.length);
+        table.put(record + NAME, name);
+        // The hash is written last, it marks the slot as used:
+        table.putInt(record + HASH, hash);
+        return slot;
+
+    }
+
+    private static boolean nameEquals(ByteBuffer table, int record, byte[] name) {
+
+        if (table.get(record + NAME_LENGTH) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (table.get(record + NAME + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+
+    }
+
+    /**
+     * Encodes a name in UTF-8, cut to the size of a record without splitting a character.
+     */
+    static byte[] encode(String playerName) {
+
+        byte[] bytes = playerName.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= NAME_BYTES) {
+            return bytes;
+        }
+
+        int length = NAME_BYTES;
+        // Continuation bytes of a character start with the bits 10:
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] cut = new byte[length];
+        System.arraycopy(bytes, 0, cut, 0, length);
+        return cut;
+
+    }
+
+    /**
+     * Hashes the whole name in UTF-8 (64-bit FNV-1a), also the part cut off in the record.
+     */
+    static long nameHash(String playerName) {
+
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : playerName.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return hash;
+
+    }
+
+    /**
+     * Folds the hash of a name into the hash that picks its slot, 0 marks a free slot so it is never returned.
+     */
+    static int slotHash(long nameHash) {
+
+        int hash = (int) (nameHash ^ (nameHash >>> 32));
+        hash ^= hash >>> 16;
+        return hash == 0 ? 1 : hash;
+
+    }
+
+}
@@ -0,0 +1,244 @@
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * The `Recording` class stores everything needed to play a round again: the seed, the window
+ * width, the number of fish images, the rules and every input together with the tick it was
+ * given at. Recording an input only appends two numbers to arrays, nothing is done per tick.
+ *
+ * A recording is written to a compact binary file: a header, the inputs as variable-length tick
+ * differences followed by the input code, and the number of ticks and the checksum of the final
+ * state, so a replay that diverges from the original round is detected.
+ */
+public class Recording {
+
+    static final int MAGIC = 0x46475250; // "FGRP"
+    static final int VERSION = 1;
+
+    private final long seed;
+    private final int windowWidth;
+    private final int spriteCount;
+    private final GameConfig config;
+
+    private int count;
+    private int[] ticks = new int[64];
+    private byte[] inputs = new byte[64];
+
+    private int finalTicks = -1;
+    private long finalChecksum;
+
+    /**
+     * Constructs a new, empty Recording.
+     *
+     * @param seed        The seed of the round.
+     * @param windowWidth The width of the window the round is played in.
+     * @param spriteCount The number of different fish images.
+     * @param config      The rules of the round.
+     */
+    public Recording(long seed, int windowWidth, int spriteCount, GameConfig config) {
+        this.seed = seed;
+        this.windowWidth = windowWidth;
+        this.spriteCount = spriteCount;
+        this.config = config;
+    }
+
+    /**
+     * Creates an engine in the same starting state as the recorded round.
+     *
+     * @return A new engine.
+     */
+    public GameEngine createEngine() {
+        return new GameEngine(windowWidth, config, seed, spriteCount);
+    }
+
+    /**
+     * Adds an input to the recording.
+     *
+     * @param tick  The number of ticks the engine had run when the input was given.
+     * @param input The input code, see GameEngine.
+     */
+    public void record(int tick, int input) {
+
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            inputs = Arrays.copyOf(inputs, count * 2);
+        }
+        ticks[count] = tick;
+        inputs[count] = (byte) input;
+        count++;
+
+    }
+
+    /**
+     * Remembers the final state of the round, so replays can be checked against it.
+     *
+     * @param engine The engine after the round ended.
+     */
+    public void finish(GameEngine engine) {
+        finalTicks = engine.getTicks();
+        finalChecksum = engine.checksum();
+    }
+
+    /**
+     * Gives the engine every recorded input that was given at its current tick.
+     *
+     * @param engine   The engine replaying the round.
+     * @param position The index of the next input to replay.
+     * @return The index of the next input to replay after this call.
+     */
+    public int feed(GameEngine engine, int position) {
+
+        while (position < count && ticks[position] <= engine.getTicks() && !engine.isEnded()) {
+            engine.applyInput(inputs[position]);
+            position++;
+        }
+        return position;
+
+    }
+
+    /**
+     * Plays the whole round again as fast as possible, without rendering it.
+     *
+     * @return The engine after the round ended.
+     */
+    public GameEngine replay() {
+
+        GameEngine engine = createEngine();
+        int position = 0;
+
+        while (!engine.isEnded()) {
+            position = feed(engine, position);
+            engine.tick();
+        }
+
+        return engine;
+
+    }
+
+    /**
+     * Checks if the engine ended in the same state as the recorded round.
+     *
+     * @param engine The engine after the replay ended.
+     * @return True if the number of ticks and the checksum match.
+     */
+    public boolean matches(GameEngine engine) {
+        return engine.getTicks() == finalTicks && engine.checksum() == finalChecksum;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    public int getFinalTicks() {
+        return finalTicks;
+    }
+
+    public long getFinalChecksum() {
+        return finalChecksum;
+    }
+
+    /**
+     * Writes the recording to a file.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(seed);
+            out.writeInt(windowWidth);
+            out.writeInt(spriteCount);
+            out.writeUTF(config.toString());
+
+            writeVarInt(out, count);
+            int previousTick = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarInt(out, ticks[i] - previousTick);
+                out.writeByte(inputs[i]);
+                previousTick = ticks[i];
+            }
+
+            out.writeInt(finalTicks);
+            out.writeLong(finalChecksum);
+        }
+
+    }
+
+    /**
+     * Reads a recording from a file.
+     *
+     * @param file The file to read.
+     * @return The recording.
+     * @throws IOException If the file cannot be read or is not a recording.
+     */
+    public static Recording read(File file) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a Fish Game recording: " + file);
+            }
+
+            long seed = in.readLong();
+            int windowWidth = in.readInt();
+            int spriteCount = in.readInt();
+            GameConfig config;
+            try {
+                config = GameConfig.parse(in.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid configuration in " + file, e);
+            }
+
+            Recording recording = new Recording(seed, windowWidth, spriteCount, config);
+
+            int inputCount = readVarInt(in);
+            int tick = 0;
+            for (int i = 0; i < inputCount; i++) {
+                tick += readVarInt(in);
+                recording.record(tick, in.readByte());
+            }
+
+            recording.finalTicks = in.readInt();
+            recording.finalChecksum = in.readLong();
+            return recording;
+        }
+
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in recording");
+
+    }
+
+}
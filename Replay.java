@@ -0,0 +1,49 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The `Replay` class plays recorded rounds again as fast as possible without rendering them,
+ * and checks that every replay ends in the recorded state. To watch a recording in real time,
+ * start the game with "--replay=FILE" instead.
+ *
+ * Usage: java Replay FILE...
+ */
+public class Replay {
+
+    public static void main(String[] args) {
+
+        if (args.length == 0) {
+            System.out.println("Usage: java Replay FILE...");
+            return;
+        }
+
+        boolean allMatch = true;
+
+        for (String path : args) {
+            try {
+                Recording recording = Recording.read(new File(path));
+
+                long start = System.nanoTime();
+                GameEngine engine = recording.replay();
+                double millis = (System.nanoTime() - start) / 1e6;
+
+                boolean matches = recording.matches(engine);
+                allMatch &= matches;
+
+                System.out.printf("%s: %d inputs, %d ticks in %.2f ms, score %d, checksum %016x %s%n",
+                    path, recording.size(), engine.getTicks(), millis, engine.getPlayerScore(), engine.checksum(),
+                    matches ? "matches" : String.format("DIVERGED (expected %d ticks, checksum %016x)",
+                        recording.getFinalTicks(), recording.getFinalChecksum()));
+            } catch (IOException e) {
+                System.out.println(path + ": " + e.getMessage());
+                allMatch = false;
+            }
+        }
+
+        if (!allMatch) {
+            System.exit(1);
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import javax.swing.SwingUtilities;
+
+/**
+ * The `RestartLeakTest` class checks that restarting a round does not leak. A GamePanel is
+ * restarted many times, the way the Restart button does it: the round is reset, which stops and
+ * joins the SimulationLoop, and the loop is started again and runs a few ticks with a cast
+ * before the next restart. The heap left after a garbage collection and the number of live
+ * threads are compared with the ones after a warm-up. The test fails with exit code 1 if the
+ * heap grew by more than the allowed slack, if a thread was left behind, or if more than one
+ * simulation thread was alive at a time.
+ *
+ * With --rebuild every restart builds a new GamePanel instead, the way the Restart button
+ * used to work, to compare the time per restart.
+ *
+ * Usage: java -Djava.awt.headless=true RestartLeakTest [--restarts=1000] [--warmup=100]
+ *                                                     [--ticks=2] [--heap-slack=KB] [--rebuild]
+ */
+public class RestartLeakTest {
+
+    static final int WINDOW_WIDTH = 1280;
+    static final int WINDOW_HEIGHT = 920;
+
+    public static void main(String[] args) throws Exception {
+
+        int restarts = 1000;
+        int warmup = 100;
+        int ticks = 2;
+        long heapSlack = 1024 * 1024;
+        boolean rebuild = false;
+
+        for (String arg : args) {
+            if (arg.startsWith("--restarts=")) {
+                restarts = Integer.parseInt(arg.substring("--restarts=".length()));
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--ticks=")) {
+                ticks = Integer.parseInt(arg.substring("--ticks=".length()));
+            } else if (arg.startsWith("--heap-slack=")) {
+                heapSlack = Long.parseLong(arg.substring("--heap-slack=".length())) * 1024;
+            } else if (arg.equals("--rebuild")) {
+                rebuild = true;
+            }
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        GamePanel[] panel = new GamePanel[1];
+        SwingUtilities.invokeAndWait(() -> panel[0] = new GamePanel(WINDOW_WIDTH, WINDOW_HEIGHT, "Leak Test"));
+
+        long[] restartNanos = new long[1];
+        runRestarts(panel, warmup, ticks, rebuild, restartNanos);
+        SwingUtilities.invokeAndWait(() -> panel[0].stopLoop());
+        long heapBefore = usedHeap(memory);
+        int threadsBefore = threadBean.getThreadCount();
+        threadBean.resetPeakThreadCount();
+
+        restartNanos[0] = 0;
+        runRestarts(panel, restarts, ticks, rebuild, restartNanos);
+        double millisPerRestart = restartNanos[0] / 1e6 / restarts;
+
+        SwingUtilities.invokeAndWait(() -> panel[0].stopLoop());
+        long heapAfter = usedHeap(memory);
+        int threadsAfter = threadBean.getThreadCount();
+        int peakThreads = threadBean.getPeakThreadCount();
+
+        System.out.printf("%d %s, each running %d ticks on the simulation thread: %.3f ms per restart (without the ticks)%n",
+            restarts, rebuild ? "rebuilds" : "in-place restarts", ticks, millisPerRestart);
+        System.out.printf("Heap after a collection: %d KB before, %d KB after (%+d KB)%n",
+            heapBefore / 1024, heapAfter / 1024, (heapAfter - heapBefore) / 1024);
+        System.out.printf("Live threads: %d before, %d after, at most %d while restarting%n",
+            threadsBefore, threadsAfter, peakThreads);
+
+        // While restarting, only the simulation thread of the current round may be alive:
+        boolean passed = heapAfter - heapBefore <= heapSlack && threadsAfter <= threadsBefore
+            && peakThreads <= threadsBefore + 1;
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+
+    }
+
+    /**
+     * Restarts the round the specified number of times on the event dispatch thread. After
+     * every restart the simulation loop is started with a cast queued, and the next restart
+     * waits until the snapshot of the last of the ticks has been shown.
+     *
+     * @param restartNanos Where the time spent restarting, without the ticks, is added up.
+     */
+    static void runRestarts(GamePanel[] panel, int restarts, int ticks, boolean rebuild, long[] restartNanos) throws Exception {
+
+        for (int i = 0; i < restarts; i++) {
+            SwingUtilities.invokeAndWait(() -> {
+                long start = System.nanoTime();
+                if (rebuild) {
+                    panel[0].stopLoop();
+                    panel[0] = new GamePanel(WINDOW_WIDTH, WINDOW_HEIGHT, "Leak Test");
+                } else {
+                    panel[0].resetRound();
+                }
+                restartNanos[0] += System.nanoTime() - start;
+                panel[0].inputQueue.offer(GameEngine.INPUT_CAST, System.nanoTime());
+                panel[0].startLoop();
+            });
+
+            int[] shownTick = new int[1];
+            while (shownTick[0] < ticks) {
+                Thread.sleep(1);
+                SwingUtilities.invokeAndWait(() -> shownTick[0] = panel[0].shown.tick);
+            }
+        }
+
+    }
+
+    /**
+     * Returns the heap in use after collecting the garbage until it stops shrinking.
+     */
+    static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+
+    }
+
+}
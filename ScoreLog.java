@@ -0,0 +1,729 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The `ScoreLog` class keeps the results of every round in an append-only file, one
+ * "name: score" line per round, oldest first. Results are handed to a background writer thread,
+ * so ending a round never waits for the disk. The writer appends the results that arrived
+ * together in one write and forces them to the disk. A line is only complete once its newline is
+ * written, so a partial line left by a crash is ignored by the readers and cut off the next time
+ * the log is opened. Results that are not written yet are already visible to the readers.
+ *
+ * The log can keep a Leaderboard of the best results and the PlayerStats of every player up to
+ * date. The writer thread saves them after every batch, so reading the best results or the
+ * statistics of a player never reads the log. The statistics may have to grow their file, so
+ * they are updated outside the lock that append takes.
+ */
+public class ScoreLog {
+
+    static final String LOG_FILE = "scores.log";
+    static final String LEGACY_FILE = "score.txt";
+    static final String LEADERBOARD_FILE = "leaderboard.dat";
+    static final String STATS_FILE = "players.dat";
+
+    // The writer waits this long after the first result, so results that arrive together are written together:
+    static final long BATCH_DELAY_MILLIS = 10;
+
+    // The writer waits this long before trying again after a failed write:
+    static final long RETRY_DELAY_MILLIS = 1000;
+
+    // The size of the blocks the log is read in, from the end:
+    static final int READ_CHUNK = 8192;
+
+    private static ScoreLog defaultLog;
+
+    private final File logFile;
+    private final File leaderboardFile;
+    private final Thread writer;
+
+    // Guards the variables below, shared by the writer thread and the readers:
+    private final Object lock = new Object();
+    private final List<String> pending = new ArrayList<>();
+    private long committedLength;
+    private long appended;
+    private long written;
+    private boolean closed;
+
+    // The best results of the written part of the log, null if the log keeps no leaderboard:
+    private Leaderboard leaderboard;
+
+    // The statistics of every player of the written part of the log, null if the log keeps none:
+    private PlayerStats stats;
+
+    // The last batch handed to the statistics, the log length they cover once it is added, and
+    // the number of batches handed over so far:
+    private List<String> statsBatch = new ArrayList<>();
+    private long statsBatchEnd;
+    private long statsBatches;
+
+    /**
+     * Returns the log of the game, "scores.log" in the working directory. The old "score.txt"
+     * is moved into it the first time.
+     *
+     * @return The score log of the game.
+     */
+    public static synchronized ScoreLog getDefault() {
+
+        if (defaultLog == null) {
+            ScoreLog log = new ScoreLog(new File(LOG_FILE), new File(LEGACY_FILE), new File(LEADERBOARD_FILE), new File(STATS_FILE));
+            // The results still waiting for the writer are written before the game exits:
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close, "Score Log Shutdown"));
+            defaultLog = log;
+        }
+        return defaultLog;
+
+    }
+
+    /**
+     * Opens a score log and starts its writer thread.
+     *
+     * @param logFile The file the results are appended to.
+     * @param legacyFile A newest-first score file to move into the log if the log does not exist yet, may be null.
+     */
+    public ScoreLog(File logFile, File legacyFile) {
+        this(logFile, legacyFile, null, null);
+    }
+
+    /**
+     * Opens a score log that keeps a leaderboard and the statistics of the players up to date
+     * and starts its writer thread. Both are brought up to date with the results appended since
+     * they were last saved.
+     *
+     * @param logFile The file the results are appended to.
+     * @param legacyFile A newest-first score file to move into the log if the log does not exist yet, may be null.
+     * @param leaderboardFile The file the leaderboard is kept in, or null to keep no leaderboard.
+     * @param statsFile The file the statistics of the players are kept in, or null to keep none.
+     */
+    public ScoreLog(File logFile, File legacyFile, File leaderboardFile, File statsFile) {
+
+        this.logFile = logFile;
+        this.leaderboardFile = leaderboardFile;
+
+        try {
+            if (!logFile.exists() && legacyFile != null && legacyFile.exists()) {
+                migrate(legacyFile, logFile);
+            }
+            committedLength = recover(logFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (leaderboardFile != null) {
+            leaderboard = Leaderboard.read(leaderboardFile, Leaderboard.DEFAULT_SIZE);
+            if (leaderboard == null) {
+                leaderboard = new Leaderboard(Leaderboard.DEFAULT_SIZE);
+            }
+            try {
+                if (leaderboard.getCoveredLength() != committedLength || !leaderboardFile.exists()) {
+                    catchUp(logFile, leaderboard, committedLength);
+                    leaderboard.write(leaderboardFile);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (statsFile != null) {
+            try {
+                stats = new PlayerStats(statsFile);
+                if (stats.getCoveredLength() != committedLength) {
+                    catchUp(logFile, stats, committedLength);
+                    stats.force();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                stats = null;
+            }
+        }
+
+        writer = new Thread(this::writeLoop, "Score Log Writer");
+        writer.setDaemon(true);
+        writer.start();
+
+    }
+
+    /**
+     * Adds the result of a round to the log. Returns right away, the result is written by the writer thread.
+     *
+     * @param playerName The name of the player.
+     * @param playerScore The player's score.
+     */
+    public void append(String playerName, int playerScore) {
+
+        String entry = formatEntry(playerName, playerScore);
+        synchronized (lock) {
+            if (closed) {
+                System.out.println("The score log is closed, the result was not saved: " + entry);
+                return;
+            }
+            pending.add(entry);
+            appended++;
+            lock.notifyAll();
+        }
+
+    }
+
+    /**
+     * Waits until every result added so far has been written to the disk.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+
+        synchronized (lock) {
+            long target = appended;
+            while (written < target && writer.isAlive()) {
+                lock.wait(100);
+            }
+        }
+
+    }
+
+    /**
+     * Writes the remaining results and stops the writer thread.
+     */
+    public void close() {
+
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+    /**
+     * Returns the newest results, newest first, including the ones that are not written yet.
+     *
+     * @param limit The most results to return.
+     * @return The "name: score" lines of the newest results.
+     */
+    public List<String> readNewest(int limit) {
+
+        List<String> lines = new ArrayList<>();
+        long length;
+
+        synchronized (lock) {
+            for (int i = pending.size() - 1; i >= 0 && lines.size() < limit; i--) {
+                lines.add(pending.get(i));
+            }
+            length = committedLength;
+        }
+
+        // Only the part of the file the writer has finished is read, the rest is still in pending:
+        if (lines.size() < limit && length > 0) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+                readBackwards(file, length, limit, lines);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return lines;
+
+    }
+
+    /**
+     * Returns the best results, best first, including the ones that are not written yet.
+     *
+     * @return The "name: score" lines of the best results, or an empty list if the log keeps no leaderboard.
+     */
+    public List<String> getTopScores() {
+
+        synchronized (lock) {
+            if (leaderboard == null) {
+                return new ArrayList<>();
+            }
+            Leaderboard top = leaderboard.copy();
+            for (String entry : pending) {
+                addEntry(top, entry);
+            }
+            return top.getEntries();
+        }
+
+    }
+
+    /**
+     * Returns the statistics of a player, including the results that are not written yet.
+     *
+     * @param playerName The name of the player.
+     * @return The statistics, or null if the player has not played yet or the log keeps no statistics.
+     */
+    public PlayerStats.Record getPlayerStats(String playerName) {
+
+        if (stats == null) {
+            return null;
+        }
+        String name = cleanName(playerName);
+
+        while (true) {
+
+            long batches;
+            long batchEnd;
+            int batchSize;
+            List<String> unwritten = new ArrayList<>();
+            synchronized (lock) {
+                batches = statsBatches;
+                batchEnd = statsBatchEnd;
+                batchSize = statsBatch.size();
+                unwritten.addAll(statsBatch);
+                unwritten.addAll(pending);
+            }
+
+            // The statistics are read outside the lock, the writer may be adding the last batch to them:
+            PlayerStats.Record record;
+            boolean batchAdded;
+            synchronized (stats) {
+                record = stats.get(name);
+                batchAdded = stats.getCoveredLength() >= batchEnd;
+            }
+
+            synchronized (lock) {
+                if (batches != statsBatches) {
+                    // Another batch was handed over meanwhile, it is not known if it is in the record:
+                    continue;
+                }
+            }
+
+            List<String> missing = batchAdded ? unwritten.subList(batchSize, unwritten.size()) : unwritten;
+            for (String entry : missing) {
+                int score = parseScore(entry);
+                if (score != NO_SCORE && parseName(entry).equals(name)) {
+                    record = (record != null ? record : new PlayerStats.Record(name, 0, 0, 0, 0)).plus(score);
+                }
+            }
+            return record;
+        }
+
+    }
+
+    /**
+     * Returns the file the results are appended to.
+     */
+    public File getFile() {
+        return logFile;
+    }
+
+    /**
+     * Formats the result of a round as one line of the log. Line breaks in the name are replaced,
+     * so every result stays on its own line.
+     *
+     * @param playerName The name of the player.
+     * @param playerScore The player's score.
+     * @return The line, without its newline.
+     */
+    static String formatEntry(String playerName, int playerScore) {
+        return cleanName(playerName) + ": " + playerScore;
+    }
+
+    /**
+     * Returns the name as it is kept in the log, with the line breaks replaced.
+     *
+     * @param playerName The name of the player.
+     * @return The name in the log.
+     */
+    static String cleanName(String playerName) {
+        return playerName.replace('\n', ' ').replace('\r', ' ');
+    }
+
+    // Returned by parseScore for lines that are not results:
+    static final int NO_SCORE = Integer.MIN_VALUE;
+
+    /**
+     * Returns the score of a line of the log.
+     *
+     * @param entry The line, without its newline.
+     * @return The score, or NO_SCORE if the line is not "name: score".
+     */
+    static int parseScore(String entry) {
+
+        // The name may contain ": " itself, the score follows the last one:
+        int separator = entry.lastIndexOf(": ");
+        if (separator < 0) {
+            return NO_SCORE;
+        }
+        try {
+            return Integer.parseInt(entry.substring(separator + 2).trim());
+        } catch (NumberFormatException e) {
+            return NO_SCORE;
+        }
+
+    }
+
+    /**
+     * Returns the name of a line of the log, the line must be a result.
+     *
+     * @param entry The line, without its newline.
+     * @return The name of the player.
+     */
+    static String parseName(String entry) {
+        return entry.substring(0, entry.lastIndexOf(": "));
+    }
+
+    /**
+     * Adds a line of the log to a leaderboard. Lines that are not "name: score" are skipped.
+     *
+     * @param leaderboard The leaderboard.
+     * @param entry The line, without its newline.
+     */
+    static void addEntry(Leaderboard leaderboard, String entry) {
+
+        int score = parseScore(entry);
+        if (score != NO_SCORE) {
+            leaderboard.add(parseName(entry), score);
+        }
+
+    }
+
+    /**
+     * Adds a line of the log to the statistics of its player. Lines that are not "name: score" are skipped.
+     *
+     * @param stats The statistics.
+     * @param entry The line, without its newline.
+     */
+    static void addEntry(PlayerStats stats, String entry) {
+
+        int score = parseScore(entry);
+        if (score != NO_SCORE) {
+            stats.record(parseName(entry), score);
+        }
+
+    }
+
+    /**
+     * Writes the pending results to the end of the log until the log is closed.
+     */
+    private void writeLoop() {
+
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+            while (true) {
+
+                boolean closing;
+                synchronized (lock) {
+                    while (pending.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    closing = closed;
+                }
+
+                if (!closing) {
+                    Thread.sleep(BATCH_DELAY_MILLIS);
+                }
+
+                List<String> batch;
+                long position;
+                synchronized (lock) {
+                    batch = new ArrayList<>(pending);
+                    position = committedLength;
+                }
+
+                StringBuilder text = new StringBuilder();
+                for (String entry : batch) {
+                    text.append(entry).append('\n');
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+                int size = buffer.remaining();
+
+                try {
+                    // A failed write may have left a part of the batch, it is cut off before writing again:
+                    channel.truncate(position);
+                    channel.position(position);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    if (closing) {
+                        return;
+                    }
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                    continue;
+                }
+
+                Leaderboard snapshot = null;
+                synchronized (lock) {
+                    if (stats != null) {
+                        statsBatch = batch;
+                        statsBatchEnd = position + size;
+                        statsBatches++;
+                    }
+                    committedLength = position + size;
+                    pending.subList(0, batch.size()).clear();
+                    written += batch.size();
+                    if (leaderboard != null) {
+                        for (String entry : batch) {
+                            addEntry(leaderboard, entry);
+                        }
+                        leaderboard.setCoveredLength(committedLength);
+                        snapshot = leaderboard.copy();
+                    }
+                    lock.notifyAll();
+                }
+
+                // The statistics may grow their file, so they are updated without holding the lock.
+                // The growing happens before the statistics are locked, the lookups only wait for
+                // the records to change in memory:
+                if (stats != null) {
+                    stats.reserve(batch.size());
+                    synchronized (stats) {
+                        for (String entry : batch) {
+                            addEntry(stats, entry);
+                        }
+                        stats.setCoveredLength(position + size);
+                    }
+                }
+
+                // The indexes are saved after the results, if they are lost the results are read again at startup:
+                if (stats != null) {
+                    stats.force();
+                }
+                if (snapshot != null) {
+                    try {
+                        snapshot.write(leaderboardFile);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+
+    }
+
+    /**
+     * Cuts off a partial last line left by a crash.
+     *
+     * @param logFile The log.
+     * @return The length of the complete lines of the log.
+     * @throws IOException If the log cannot be read or shortened.
+     */
+    static long recover(File logFile) throws IOException {
+
+        if (!logFile.exists()) {
+            return 0;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+
+            long length = file.length();
+            long complete = length;
+            while (complete > 0) {
+                file.seek(complete - 1);
+                if (file.read() == '\n') {
+                    break;
+                }
+                complete--;
+            }
+
+            if (complete < length) {
+                System.out.println("Cutting off a partial line of " + (length - complete) + " bytes at the end of " + logFile);
+                file.setLength(complete);
+            }
+            return complete;
+        }
+
+    }
+
+    /**
+     * Adds the results appended to the log since the leaderboard was saved to the leaderboard.
+     * If the log is shorter than the part the leaderboard covers, the log was replaced and the
+     * leaderboard is built again from the start.
+     *
+     * @param logFile The log.
+     * @param leaderboard The leaderboard.
+     * @param length The length of the complete lines of the log.
+     * @throws IOException If the log cannot be read.
+     */
+    static void catchUp(File logFile, Leaderboard leaderboard, long length) throws IOException {
+
+        if (leaderboard.getCoveredLength() > length) {
+            leaderboard.clear();
+        }
+
+        int results = readFrom(logFile, leaderboard.getCoveredLength(), entry -> addEntry(leaderboard, entry));
+        leaderboard.setCoveredLength(length);
+
+        if (results > 0) {
+            System.out.println("The leaderboard was brought up to date with " + results + " results of " + logFile);
+        }
+
+    }
+
+    /**
+     * Adds the results appended to the log since the statistics were saved to the statistics.
+     * If the log is shorter than the part the statistics cover, they are built again from the start.
+     *
+     * @param logFile The log.
+     * @param stats The statistics.
+     * @param length The length of the complete lines of the log.
+     * @throws IOException If the log cannot be read.
+     */
+    static void catchUp(File logFile, PlayerStats stats, long length) throws IOException {
+
+        if (stats.getCoveredLength() > length) {
+            stats.clear();
+        }
+
+        int results = readFrom(logFile, stats.getCoveredLength(), entry -> addEntry(stats, entry));
+        stats.setCoveredLength(length);
+
+        if (results > 0) {
+            System.out.println("The player statistics were brought up to date with " + results + " results of " + logFile);
+        }
+
+    }
+
+    /**
+     * Reads the lines of the log from a position to the end. The log must not be written at the same time.
+     *
+     * @param logFile The log.
+     * @param from The position of the first line.
+     * @param consumer Receives every line, without its newline.
+     * @return The number of lines read.
+     * @throws IOException If the log cannot be read.
+     */
+    static int readFrom(File logFile, long from, Consumer<String> consumer) throws IOException {
+
+        if (from >= logFile.length()) {
+            return 0;
+        }
+
+        int lines = 0;
+        try (FileInputStream in = new FileInputStream(logFile)) {
+            in.getChannel().position(from);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumer.accept(line);
+                lines++;
+            }
+        }
+        return lines;
+
+    }
+
+    /**
+     * Moves the results of a newest-first score file into a new oldest-first log. The log is
+     * written to a temporary file first, so it only appears once it is complete.
+     *
+     * @param legacyFile The newest-first score file, it is left in place.
+     * @param logFile The log to create.
+     * @throws IOException If a file cannot be read or written.
+     */
+    static void migrate(File legacyFile, File logFile) throws IOException {
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(legacyFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            text.append(lines.get(i)).append('\n');
+        }
+
+        File directory = logFile.getAbsoluteFile().getParentFile();
+        File tempFile = File.createTempFile(logFile.getName(), ".tmp", directory);
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+
+        try {
+            Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        System.out.println("Moved " + lines.size() + " scores from " + legacyFile + " to " + logFile);
+
+    }
+
+    /**
+     * Reads the lines of a file backwards from the specified length, so only the end of a long
+     * log is read.
+     *
+     * @param file The file.
+     * @param length The length of the part of the file to read, ending with a newline.
+     * @param limit The most lines in the list when done.
+     * @param lines The list the lines are added to, newest first.
+     * @throws IOException If the file cannot be read.
+     */
+    static void readBackwards(RandomAccessFile file, long length, int limit, List<String> lines) throws IOException {
+
+        long position = length;
+        // The start of the line that continues in the block read before:
+        byte[] carry = new byte[0];
+
+        while (position > 0 && lines.size() < limit) {
+
+            int size = (int) Math.min(READ_CHUNK, position);
+            position -= size;
+
+            byte[] data = new byte[size + carry.length];
+            file.seek(position);
+            file.readFully(data, 0, size);
+            System.arraycopy(carry, 0, data, size, carry.length);
+
+            int end = data.length;
+            for (int i = data.length - 1; i >= 0 && lines.size() < limit; i--) {
+                if (data[i] == '\n') {
+                    if (end > i + 1) {
+                        lines.add(new String(data, i + 1, end - i - 1, StandardCharsets.UTF_8));
+                    }
+                    end = i;
+                }
+            }
+
+            carry = new byte[end];
+            System.arraycopy(data, 0, carry, 0, end);
+        }
+
+        // The first line of the file has no newline in front of it:
+        if (position == 0 && carry.length > 0 && lines.size() < limit) {
+            lines.add(new String(carry, StandardCharsets.UTF_8));
+        }
+
+    }
+
+}
@@ -0,0 +1,709 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The `ScoreTool` class converts, merges, deduplicates and compacts score files of any size. Every
+ * command streams its input, and the commands that need the entries in another order sort them
+ * externally: sorted runs of a bounded number of entries are written to temporary files and
+ * merged. The heap used does not depend on the size of the files.
+ *
+ * Score files are either text, one "name: score" line per entry as in scores.log, or binary. The
+ * format of an input file is detected from its first bytes, the format of the output file is
+ * binary if its name ends with ".bin" and text otherwise. The binary format holds the magic
+ * "FGSB" and the version, followed by every entry as the length of the name, the name in UTF-8
+ * and the score, all numbers as variable-length integers.
+ *
+ * Usage: java ScoreTool [--run=ENTRIES] [--tmp=DIR] COMMAND INPUT... OUTPUT
+ *
+ *   convert IN OUT      converts a file between the text and the binary format
+ *   merge IN... OUT     appends the files one after another
+ *   dedup IN... OUT     keeps the first of every entry with the same name and score
+ *   compact IN... OUT   keeps the best entry of every player
+ *
+ * Entries keep the order they have in the inputs. The output is written to a temporary file next
+ * to it and moved into place when the command has finished, so a command that fails leaves the
+ * output as it was. The output of convert and merge must not be one of their inputs.
+ */
+public class ScoreTool {
+
+    static final int MAGIC = 0x46475342; // "FGSB"
+    static final int VERSION = 1;
+
+    // The number of entries sorted in memory at once:
+    static final int DEFAULT_RUN_SIZE = 250_000;
+
+    // The number of runs merged at once, more runs are merged in several passes:
+    static final int MAX_MERGE_FILES = 64;
+
+    // The longest name a binary file may hold, in bytes, longer ones mean the file is corrupt:
+    static final int MAX_NAME_BYTES = 4096;
+
+    /**
+     * The `Entry` class is one result of a score file. The sequence is the position of the
+     * entry in the inputs.
+     */
+    static class Entry {
+
+        final String name;
+        final int score;
+        final long sequence;
+
+        Entry(String name, int score, long sequence) {
+            this.name = name;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+    }
+
+    static final Comparator<Entry> BY_SEQUENCE = Comparator.comparingLong(entry -> entry.sequence);
+
+    static final Comparator<Entry> BY_NAME_AND_SCORE = Comparator.<Entry, String>comparing(entry -> entry.name)
+        .thenComparingInt(entry -> entry.score).thenComparingLong(entry -> entry.sequence);
+
+    static final Comparator<Entry> BY_NAME_AND_BEST = Comparator.<Entry, String>comparing(entry -> entry.name)
+        .thenComparingInt(entry -> -entry.score).thenComparingLong(entry -> entry.sequence);
+
+    /**
+     * The `EntrySink` interface receives entries one after another.
+     */
+    interface EntrySink {
+        void accept(Entry entry) throws IOException;
+    }
+
+    /**
+     * The `EntryReader` class reads the entries of a text or a binary score file.
+     */
+    static class EntryReader implements AutoCloseable {
+
+        private final File file;
+        private final BufferedReader text;
+        private final DataInputStream binary;
+        private final boolean withSequence;
+        private long sequence;
+        private long skipped;
+
+        /**
+         * Opens a score file, detecting its format.
+         *
+         * @param file The file.
+         * @param firstSequence The sequence given to the first entry.
+         */
+        EntryReader(File file, long firstSequence) throws IOException {
+
+            this.file = file;
+            this.sequence = firstSequence;
+            this.withSequence = false;
+
+            BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+            in.mark(4);
+            byte[] magic = new byte[4];
+            int read = in.readNBytes(magic, 0, 4);
+            in.reset();
+
+            if (read == 4 && ((magic[0] & 0xFF) << 24 | (magic[1] & 0xFF) << 16 | (magic[2] & 0xFF) << 8 | (magic[3] & 0xFF)) == MAGIC) {
+                binary = new DataInputStream(in);
+                binary.readInt();
+                int version = binary.readUnsignedByte();
+                if (version != VERSION) {
+                    binary.close();
+                    throw new IOException(file + " has the unknown version " + version);
+                }
+                text = null;
+            } else {
+                text = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+                binary = null;
+            }
+
+        }
+
+        /**
+         * Opens a temporary run, whose entries keep their own sequence.
+         */
+        private EntryReader(File run) throws IOException {
+            this.file = run;
+            this.withSequence = true;
+            this.text = null;
+            this.binary = new DataInputStream(new BufferedInputStream(new FileInputStream(run), 1 << 16));
+        }
+
+        /**
+         * Returns the next entry, or null at the end of the file. Lines that are not
+         * "name: score" or whose name is longer than MAX_NAME_BYTES are skipped, as is a partial
+         * entry at the end of a binary file. A binary file with a longer name is corrupt.
+         */
+        Entry next() throws IOException {
+
+            if (text != null) {
+                String line;
+                while ((line = text.readLine()) != null) {
+                    int score = ScoreLog.parseScore(line);
+                    if (score != ScoreLog.NO_SCORE) {
+                        String name = ScoreLog.parseName(line);
+                        // A name too long for the binary format is skipped like any other bad line:
+                        if (name.length() <= MAX_NAME_BYTES / 3 || name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES) {
+                            return new Entry(name, score, sequence++);
+                        }
+                    }
+                    if (!line.isEmpty()) {
+                        skipped++;
+                    }
+                }
+                return null;
+            }
+
+            int nameLength;
+            try {
+                nameLength = readVarInt(binary);
+            } catch (EOFException e) {
+                return null;
+            }
+
+            if (nameLength < 0 || nameLength > MAX_NAME_BYTES) {
+                throw new IOException(file + " is corrupt: a name of " + Integer.toUnsignedString(nameLength) + " bytes");
+            }
+
+            try {
+                byte[] name = new byte[nameLength];
+                binary.readFully(name);
+                int score = zigZagDecode(readVarInt(binary));
+                long entrySequence = withSequence ? readVarLong(binary) : sequence++;
+                return new Entry(new String(name, StandardCharsets.UTF_8), score, entrySequence);
+            } catch (EOFException e) {
+                System.out.println(file + " ends with a partial entry, it is skipped.");
+                return null;
+            }
+
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        long getSkipped() {
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (text != null) {
+                text.close();
+            } else {
+                binary.close();
+            }
+        }
+
+    }
+
+    /**
+     * The `EntryWriter` class writes entries to a text or a binary score file. A score file is
+     * written to a temporary file in the same directory, which replaces the file on commit. If
+     * the writer is closed without a commit, the temporary file is deleted.
+     */
+    static class EntryWriter implements EntrySink, AutoCloseable {
+
+        private final BufferedWriter text;
+        private final DataOutputStream binary;
+        private final boolean withSequence;
+        private final File target;
+        private final File partial;
+        private boolean closed;
+        private long written;
+
+        /**
+         * Creates a score file, binary if its name ends with ".bin" and text otherwise. Nothing
+         * is written to the file itself before commit.
+         *
+         * @param file The file.
+         */
+        EntryWriter(File file) throws IOException {
+            this(file, file.getName().endsWith(".bin"), false);
+        }
+
+        private EntryWriter(File file, boolean binaryFormat, boolean withSequence) throws IOException {
+
+            this.withSequence = withSequence;
+            if (withSequence) {
+                // A temporary run is written in place:
+                target = null;
+                partial = file;
+            } else {
+                target = file;
+                partial = File.createTempFile(file.getName() + ".", ".partial", file.getAbsoluteFile().getParentFile());
+                partial.deleteOnExit();
+            }
+
+            FileOutputStream out = new FileOutputStream(partial);
+            if (binaryFormat) {
+                binary = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+                text = null;
+                if (!withSequence) {
+                    binary.writeInt(MAGIC);
+                    binary.writeByte(VERSION);
+                }
+            } else {
+                text = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+                binary = null;
+            }
+
+        }
+
+        @Override
+        public void accept(Entry entry) throws IOException {
+
+            if (text != null) {
+                text.write(ScoreLog.formatEntry(entry.name, entry.score));
+                text.write('\n');
+            } else {
+                byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(binary, name.length);
+                binary.write(name);
+                writeVarInt(binary, zigZagEncode(entry.score));
+                if (withSequence) {
+                    writeVarLong(binary, entry.sequence);
+                }
+            }
+            written++;
+
+        }
+
+        long getWritten() {
+            return written;
+        }
+
+        /**
+         * Closes the file and atomically replaces the score file with it.
+         */
+        void commit() throws IOException {
+
+            closeStream();
+            if (target != null) {
+                Files.move(partial.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            if (closed) {
+                return;
+            }
+            try {
+                closeStream();
+            } finally {
+                if (target != null) {
+                    // The command failed, the score file stays as it was:
+                    partial.delete();
+                }
+            }
+
+        }
+
+        private void closeStream() throws IOException {
+
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (text != null) {
+                text.close();
+            } else {
+                binary.close();
+            }
+
+        }
+
+    }
+
+    /**
+     * The `Cursor` class is the current entry of a run being merged.
+     */
+    static class Cursor {
+
+        Entry entry;
+        final EntryReader reader;
+
+        Cursor(Entry entry, EntryReader reader) {
+            this.entry = entry;
+            this.reader = reader;
+        }
+
+    }
+
+    /**
+     * The `Sorter` class sorts any number of entries with a bounded amount of memory. Entries are
+     * collected into runs that are sorted in memory and written to temporary files, which are
+     * merged at the end.
+     */
+    static class Sorter {
+
+        private final Comparator<Entry> order;
+        private final int runSize;
+        private final File tmpDirectory;
+        private final List<Entry> buffer = new ArrayList<>();
+        private final List<File> runs = new ArrayList<>();
+
+        Sorter(Comparator<Entry> order, int runSize, File tmpDirectory) {
+            this.order = order;
+            this.runSize = runSize;
+            this.tmpDirectory = tmpDirectory;
+        }
+
+        void add(Entry entry) throws IOException {
+
+            buffer.add(entry);
+            if (buffer.size() >= runSize) {
+                spill();
+            }
+
+        }
+
+        /**
+         * Passes every entry added to the sink, in order, and deletes the temporary files.
+         *
+         * @param sink The sink.
+         */
+        void finish(EntrySink sink) throws IOException {
+
+            try {
+                if (runs.isEmpty()) {
+                    // Everything fit in memory:
+                    buffer.sort(order);
+                    for (Entry entry : buffer) {
+                        sink.accept(entry);
+                    }
+                    buffer.clear();
+                    return;
+                }
+
+                spill();
+                while (runs.size() > MAX_MERGE_FILES) {
+                    List<File> group = new ArrayList<>(runs.subList(0, MAX_MERGE_FILES));
+                    runs.subList(0, MAX_MERGE_FILES).clear();
+                    File merged = createRun();
+                    try (EntryWriter out = new EntryWriter(merged, true, true)) {
+                        merge(group, out);
+                    }
+                    runs.add(merged);
+                }
+                merge(runs, sink);
+            } finally {
+                for (File run : runs) {
+                    run.delete();
+                }
+                runs.clear();
+            }
+
+        }
+
+        private void spill() throws IOException {
+
+            if (buffer.isEmpty()) {
+                return;
+            }
+            buffer.sort(order);
+            File run = createRun();
+            try (EntryWriter out = new EntryWriter(run, true, true)) {
+                for (Entry entry : buffer) {
+                    out.accept(entry);
+                }
+            }
+            runs.add(run);
+            buffer.clear();
+
+        }
+
+        private File createRun() throws IOException {
+            File run = File.createTempFile("scoretool", ".run", tmpDirectory);
+            run.deleteOnExit();
+            return run;
+        }
+
+        /**
+         * Merges sorted runs into the sink and deletes them.
+         */
+        private void merge(List<File> group, EntrySink sink) throws IOException {
+
+            PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.entry, b.entry));
+            List<EntryReader> readers = new ArrayList<>();
+
+            try {
+                for (File run : group) {
+                    EntryReader reader = new EntryReader(run);
+                    readers.add(reader);
+                    Entry first = reader.next();
+                    if (first != null) {
+                        heads.add(new Cursor(first, reader));
+                    }
+                }
+
+                while (!heads.isEmpty()) {
+                    Cursor head = heads.poll();
+                    sink.accept(head.entry);
+                    head.entry = head.reader.next();
+                    if (head.entry != null) {
+                        heads.add(head);
+                    }
+                }
+            } finally {
+                for (EntryReader reader : readers) {
+                    reader.close();
+                }
+                for (File run : group) {
+                    run.delete();
+                }
+            }
+
+        }
+
+    }
+
+    public static void main(String[] args) {
+
+        int runSize = DEFAULT_RUN_SIZE;
+        File tmpDirectory = null;
+        List<String> arguments = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--run=")) {
+                runSize = Integer.parseInt(arg.substring("--run=".length()));
+            } else if (arg.startsWith("--tmp=")) {
+                tmpDirectory = new File(arg.substring("--tmp=".length()));
+            } else {
+                arguments.add(arg);
+            }
+        }
+
+        if (arguments.size() < 3 || (arguments.get(0).equals("convert") && arguments.size() != 3)) {
+            System.out.println("Usage: java ScoreTool [--run=ENTRIES] [--tmp=DIR] convert|merge|dedup|compact INPUT... OUTPUT");
+            System.exit(2);
+        }
+
+        String command = arguments.get(0);
+        List<File> inputs = new ArrayList<>();
+        for (String path : arguments.subList(1, arguments.size() - 1)) {
+            inputs.add(new File(path));
+        }
+        File output = new File(arguments.get(arguments.size() - 1));
+
+        long start = System.nanoTime();
+        long[] counts;
+
+        try {
+            switch (command) {
+                case "convert":
+                case "merge":
+                    counts = merge(inputs, output);
+                    break;
+                case "dedup":
+                    counts = dedup(inputs, output, runSize, tmpDirectory);
+                    break;
+                case "compact":
+                    counts = compact(inputs, output, runSize, tmpDirectory);
+                    break;
+                default:
+                    System.out.println("Unknown command: " + command);
+                    System.exit(2);
+                    return;
+            }
+        } catch (IOException e) {
+            System.out.println(command + " failed: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        System.out.printf("%s: read %d entries, skipped %d lines, wrote %d entries to %s in %.2f s%n",
+            command, counts[0], counts[1], counts[2], output, (System.nanoTime() - start) / 1e9);
+
+    }
+
+    /**
+     * Appends every entry of the inputs to the output, in order.
+     *
+     * @return The entries read, the lines skipped and the entries written.
+     */
+    static long[] merge(List<File> inputs, File output) throws IOException {
+
+        // The output is written while the inputs are read, so it cannot be one of them:
+        if (output.exists()) {
+            for (File input : inputs) {
+                if (input.exists() && Files.isSameFile(input.toPath(), output.toPath())) {
+                    throw new IOException(output + " is also an input, write to another file");
+                }
+            }
+        }
+
+        try (EntryWriter out = new EntryWriter(output)) {
+            long[] counts = readAll(inputs, out);
+            counts[2] = out.getWritten();
+            out.commit();
+            return counts;
+        }
+
+    }
+
+    /**
+     * Keeps the first of every entry with the same name and score. The entries are sorted by
+     * name and score to find the duplicates, then sorted back into their order.
+     *
+     * @return The entries read, the lines skipped and the entries written.
+     */
+    static long[] dedup(List<File> inputs, File output, int runSize, File tmpDirectory) throws IOException {
+
+        Sorter byNameAndScore = new Sorter(BY_NAME_AND_SCORE, runSize, tmpDirectory);
+        long[] counts = readAll(inputs, byNameAndScore::add);
+
+        Sorter bySequence = new Sorter(BY_SEQUENCE, runSize, tmpDirectory);
+        Entry[] previous = new Entry[1];
+        byNameAndScore.finish(entry -> {
+            if (previous[0] == null || previous[0].score != entry.score || !previous[0].name.equals(entry.name)) {
+                bySequence.add(entry);
+            }
+            previous[0] = entry;
+        });
+
+        try (EntryWriter out = new EntryWriter(output)) {
+            bySequence.finish(out);
+            counts[2] = out.getWritten();
+            out.commit();
+        }
+        return counts;
+
+    }
+
+    /**
+     * Keeps the best entry of every player, the first one if the player has the best score more
+     * than once. The entries are sorted by name and score to find the best ones, then sorted back
+     * into their order.
+     *
+     * @return The entries read, the lines skipped and the entries written.
+     */
+    static long[] compact(List<File> inputs, File output, int runSize, File tmpDirectory) throws IOException {
+
+        Sorter byNameAndBest = new Sorter(BY_NAME_AND_BEST, runSize, tmpDirectory);
+        long[] counts = readAll(inputs, byNameAndBest::add);
+
+        Sorter bySequence = new Sorter(BY_SEQUENCE, runSize, tmpDirectory);
+        String[] previousName = new String[1];
+        byNameAndBest.finish(entry -> {
+            if (!entry.name.equals(previousName[0])) {
+                bySequence.add(entry);
+            }
+            previousName[0] = entry.name;
+        });
+
+        try (EntryWriter out = new EntryWriter(output)) {
+            bySequence.finish(out);
+            counts[2] = out.getWritten();
+            out.commit();
+        }
+        return counts;
+
+    }
+
+    /**
+     * Passes every entry of the inputs to the sink, numbering them in order.
+     *
+     * @return The entries read, the lines skipped and a place for the entries written.
+     */
+    private static long[] readAll(List<File> inputs, EntrySink sink) throws IOException {
+
+        long sequence = 0;
+        long skipped = 0;
+
+        for (File input : inputs) {
+            try (EntryReader in = new EntryReader(input, sequence)) {
+                Entry entry;
+                while ((entry = in.next()) != null) {
+                    sink.accept(entry);
+                }
+                sequence = in.getSequence();
+                skipped += in.getSkipped();
+            }
+        }
+
+        return new long[] {sequence, skipped, 0};
+
+    }
+
+    private static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigZagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+
+    }
+
+    /**
+     * Reads a variable-length integer. The end of the file before its first byte is an
+     * EOFException, the end of the file inside it too.
+     */
+    private static int readVarInt(DataInputStream in) throws IOException {
+
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in score file");
+
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in score file");
+
+    }
+
+}
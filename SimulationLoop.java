@@ -0,0 +1,129 @@
+/**
+ * The `SimulationLoop` class advances a GamePanel's round on its own thread, one tick every 25 ms
+ * as measured by the panel's GameClock. After every tick the panel publishes a GameSnapshot for
+ * the renderer, so painting on the event dispatch thread or on the ActiveGameLoop never delays a
+ * tick, and a slow tick never delays painting. The thread ends when the round ends or the loop
+ * is stopped.
+ *
+ * The time between the starts of consecutive ticks is counted in a Histogram, to show how steady
+ * the ticks are.
+ */
+public class SimulationLoop implements Runnable {
+
+    private final GamePanel gamePanel;
+    private final GameClock clock;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // The times between the starts of consecutive ticks, only used by the thread while it runs:
+    private final Histogram tickIntervals = new Histogram();
+    private long lastTick;
+
+    /**
+     * Constructs a new SimulationLoop.
+     *
+     * @param gamePanel The game panel whose round is advanced.
+     * @param clock     The clock measuring how many ticks are due.
+     */
+    public SimulationLoop(GamePanel gamePanel, GameClock clock) {
+        this.gamePanel = gamePanel;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the thread, if it is not running yet. The clock should be started right before.
+     */
+    public synchronized void start() {
+
+        if (running) {
+            return;
+        }
+
+        tickIntervals.reset();
+        lastTick = 0;
+        running = true;
+        thread = new Thread(this, "Fish Game Simulation");
+        thread.setDaemon(true);
+        thread.start();
+
+    }
+
+    /**
+     * Stops the thread and waits until it has finished its tick, so the engine can be changed
+     * safely afterwards. The thread never waits for the event dispatch thread, so this can be
+     * called from it.
+     */
+    public synchronized void stop() {
+
+        running = false;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        thread = null;
+
+    }
+
+    /**
+     * Checks if the loop is running.
+     *
+     * @return True if the loop was started and neither stopped nor ended yet.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+
+        GameEngine engine = gamePanel.engine;
+
+        while (running && !engine.isEnded()) {
+
+            int dueTicks = clock.advance();
+            for (int i = 0; i < dueTicks && running && !engine.isEnded(); i++) {
+                long now = System.nanoTime();
+                if (lastTick != 0) {
+                    tickIntervals.record(now - lastTick);
+                }
+                lastTick = now;
+                gamePanel.tick();
+            }
+
+            long sleepNanos = clock.getNanosUntilNextTick();
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        running = false;
+
+    }
+
+    /**
+     * Returns the times between the starts of consecutive ticks. Only read it while the loop is stopped.
+     */
+    public Histogram getTickIntervals() {
+        return tickIntervals;
+    }
+
+    /**
+     * Returns a report of the time between ticks, in the style of the GameClock report.
+     *
+     * @return A single line report.
+     */
+    public String report() {
+        return String.format("Tick interval: p50: %.1f ms, p99: %.1f ms, max: %.1f ms",
+            tickIntervals.percentile(0.50) / 1e6, tickIntervals.percentile(0.99) / 1e6, tickIntervals.getMax() / 1e6);
+    }
+
+}
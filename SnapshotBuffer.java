@@ -0,0 +1,56 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The `SnapshotBuffer` class hands GameSnapshots from the simulation to the renderer without
+ * locks, with three snapshots: the writer fills the back one, the reader draws the front one,
+ * and the one in the middle holds the latest snapshot that was published. Publishing swaps the
+ * back and the middle snapshots, and the reader swaps the middle and the front ones when a newer
+ * snapshot is waiting. Neither side ever waits for the other: a slow renderer only skips
+ * snapshots and a slow tick only makes the renderer draw the same snapshot again.
+ *
+ * There must be one writer and one reader at a time.
+ */
+public class SnapshotBuffer {
+
+    // Set in the middle index when it holds a snapshot the reader has not taken yet:
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final GameSnapshot[] snapshots = {new GameSnapshot(), new GameSnapshot(), new GameSnapshot()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    // Only used by the writer:
+    private int back = 0;
+
+    // Only used by the reader:
+    private int front = 2;
+
+    /**
+     * Returns the snapshot the writer fills before calling publish().
+     */
+    public GameSnapshot back() {
+        return snapshots[back];
+    }
+
+    /**
+     * Publishes the back snapshot as the latest one and gives the writer a new back snapshot.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns the latest published snapshot. It stays untouched by the writer until the next call.
+     *
+     * @return The latest snapshot, or the one returned before if nothing new was published.
+     */
+    public GameSnapshot latest() {
+
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return snapshots[front];
+
+    }
+
+}
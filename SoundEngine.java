@@ -0,0 +1,328 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * The `SoundEngine` class plays the sound effects of the game. Every sound is decoded once into
+ * 16-bit stereo samples at the rate of the mixer and shared by every round. A fixed number of
+ * voices is mixed on a dedicated audio thread and written to one line, so the same sound can
+ * play several times at once. When every voice is busy, the voice that has played the longest
+ * is taken over.
+ *
+ * The game asks for a sound with play(), which only puts the number of the sound into a ring
+ * buffer read by the audio thread: it takes constant time and creates no objects.
+ */
+public class SoundEngine {
+
+    static final float SAMPLE_RATE = 44100f;
+    static final int CHANNELS = 2;
+
+    static final int VOICE_COUNT = 8;
+
+    // The number of frames mixed at once, about 6 ms:
+    static final int BLOCK_FRAMES = 256;
+
+    // The size of the buffer of the line, about 23 ms:
+    static final int LINE_BUFFER_FRAMES = 1024;
+
+    // The number of requests the ring buffer holds, a power of two:
+    static final int QUEUE_SIZE = 64;
+
+    private static SoundEngine defaultEngine;
+
+    // The decoded sounds, interleaved stereo samples:
+    private final List<short[]> sounds = new ArrayList<>();
+    private final Map<String, Integer> soundsByPath = new HashMap<>();
+
+    // Requests of the game, written under queueLock and read by the audio thread without locking:
+    private final int[] queue = new int[QUEUE_SIZE];
+    private final AtomicLong queueHead = new AtomicLong();
+    private final AtomicLong queueTail = new AtomicLong();
+    private final Object queueLock = new Object();
+    private long droppedRequests;
+
+    // The voices, only used by the audio thread:
+    private final short[][] voiceSound = new short[VOICE_COUNT][];
+    private final int[] voicePosition = new int[VOICE_COUNT];
+    private final long[] voiceStart = new long[VOICE_COUNT];
+    private long voicesStarted;
+    private volatile long stolenVoices;
+
+    private SourceDataLine line;
+    private Thread audioThread;
+    private volatile boolean running;
+
+    /**
+     * Returns the sound engine of the game, opening the audio line the first time.
+     */
+    public static synchronized SoundEngine getDefault() {
+
+        if (defaultEngine == null) {
+            defaultEngine = new SoundEngine();
+            defaultEngine.start();
+        }
+        return defaultEngine;
+
+    }
+
+    /**
+     * Decodes a sound, or returns the number of the sound if it was decoded before.
+     *
+     * @param path The path of the sound, on the class path or in the working directory.
+     * @return The number of the sound, or -1 if it cannot be decoded.
+     */
+    public synchronized int load(String path) {
+
+        Integer loaded = soundsByPath.get(path);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        try (AudioInputStream stream = open(path)) {
+
+            short[] samples = decode(stream);
+            int sound;
+            // The audio thread reads the list while starting voices:
+            synchronized (sounds) {
+                sounds.add(samples);
+                sound = sounds.size() - 1;
+            }
+            soundsByPath.put(path, sound);
+            return sound;
+
+        } catch (IOException | UnsupportedAudioFileException e) {
+            e.printStackTrace();
+            return -1;
+        }
+
+    }
+
+    /**
+     * Plays a sound. Returns right away, the sound starts on the audio thread.
+     *
+     * @param sound The number of the sound, as returned by load().
+     */
+    public void play(int sound) {
+
+        if (sound < 0 || !running) {
+            return;
+        }
+
+        synchronized (queueLock) {
+            long tail = queueTail.get();
+            if (tail - queueHead.get() >= QUEUE_SIZE) {
+                droppedRequests++;
+                return;
+            }
+            queue[(int) (tail & (QUEUE_SIZE - 1))] = sound;
+            // Publishes the request to the audio thread:
+            queueTail.lazySet(tail + 1);
+        }
+
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getStolenVoices() {
+        return stolenVoices;
+    }
+
+    public long getDroppedRequests() {
+        synchronized (queueLock) {
+            return droppedRequests;
+        }
+    }
+
+    /**
+     * Opens the audio line and starts the audio thread. Without an audio device, sounds are not played.
+     */
+    void start() {
+
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, LINE_BUFFER_FRAMES * format.getFrameSize());
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.out.println("No audio line is available, the sounds are turned off: " + e.getMessage());
+            return;
+        }
+
+        running = true;
+        audioThread = new Thread(this::mixLoop, "Sound Engine");
+        audioThread.setDaemon(true);
+        audioThread.setPriority(Thread.MAX_PRIORITY);
+        audioThread.start();
+
+    }
+
+    /**
+     * Stops the audio thread and closes the line.
+     */
+    void stop() {
+
+        running = false;
+        if (audioThread != null) {
+            try {
+                audioThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    /**
+     * Mixes the voices block by block and writes them to the line. Writing waits while the line
+     * is full, which keeps the loop at the pace of the sound card.
+     */
+    private void mixLoop() {
+
+        int[] mix = new int[BLOCK_FRAMES * CHANNELS];
+        byte[] block = new byte[BLOCK_FRAMES * CHANNELS * 2];
+
+        while (running) {
+
+            startRequestedVoices();
+
+            Arrays.fill(mix, 0);
+            for (int voice = 0; voice < VOICE_COUNT; voice++) {
+                short[] samples = voiceSound[voice];
+                if (samples == null) {
+                    continue;
+                }
+                int position = voicePosition[voice];
+                int count = Math.min(mix.length, samples.length - position);
+                for (int i = 0; i < count; i++) {
+                    mix[i] += samples[position + i];
+                }
+                voicePosition[voice] = position + count;
+                if (voicePosition[voice] >= samples.length) {
+                    voiceSound[voice] = null;
+                }
+            }
+
+            for (int i = 0; i < mix.length; i++) {
+                int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                block[2 * i] = (byte) sample;
+                block[2 * i + 1] = (byte) (sample >> 8);
+            }
+            line.write(block, 0, block.length);
+        }
+
+        line.drain();
+        line.close();
+
+    }
+
+    /**
+     * Starts a voice for every request of the game, taking over the oldest voice if all are busy.
+     */
+    private void startRequestedVoices() {
+
+        long head = queueHead.get();
+        long tail = queueTail.get();
+
+        for (; head < tail; head++) {
+
+            int sound = queue[(int) (head & (QUEUE_SIZE - 1))];
+            short[] samples;
+            synchronized (sounds) {
+                samples = sounds.get(sound);
+            }
+
+            int chosen = 0;
+            for (int voice = 0; voice < VOICE_COUNT; voice++) {
+                if (voiceSound[voice] == null) {
+                    chosen = voice;
+                    break;
+                }
+                if (voiceStart[voice] < voiceStart[chosen]) {
+                    chosen = voice;
+                }
+            }
+            if (voiceSound[chosen] != null) {
+                stolenVoices++;
+            }
+
+            voiceSound[chosen] = samples;
+            voicePosition[chosen] = 0;
+            voiceStart[chosen] = voicesStarted++;
+        }
+
+        // Frees the slots of the requests for the game:
+        queueHead.lazySet(head);
+
+    }
+
+    /**
+     * Opens a sound from the class path, or from the working directory if it is not on the class path.
+     */
+    private static AudioInputStream open(String path) throws IOException, UnsupportedAudioFileException {
+
+        InputStream in = SoundEngine.class.getResourceAsStream(path);
+        if (in == null) {
+            in = new FileInputStream(new File(path));
+        }
+        return AudioSystem.getAudioInputStream(new BufferedInputStream(in));
+
+    }
+
+    /**
+     * Decodes a sound into interleaved 16-bit stereo samples at the rate of the mixer. Mono
+     * sounds are copied to both channels and other rates are resampled linearly.
+     */
+    static short[] decode(AudioInputStream stream) throws IOException {
+
+        AudioFormat source = stream.getFormat();
+        int channels = source.getChannels();
+        AudioFormat pcm = new AudioFormat(source.getSampleRate(), 16, channels, true, false);
+        byte[] bytes;
+        try (AudioInputStream converted = AudioSystem.getAudioInputStream(pcm, stream)) {
+            bytes = converted.readAllBytes();
+        }
+
+        int sourceFrames = bytes.length / (2 * channels);
+        double step = source.getSampleRate() / SAMPLE_RATE;
+        int frames = (int) (sourceFrames / step);
+        short[] samples = new short[frames * CHANNELS];
+
+        for (int frame = 0; frame < frames; frame++) {
+            double position = frame * step;
+            int first = (int) position;
+            int second = Math.min(first + 1, sourceFrames - 1);
+            double fraction = position - first;
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                int sourceChannel = Math.min(channel, channels - 1);
+                int a = sampleAt(bytes, first, sourceChannel, channels);
+                int b = sampleAt(bytes, second, sourceChannel, channels);
+                samples[frame * CHANNELS + channel] = (short) Math.round(a + (b - a) * fraction);
+            }
+        }
+
+        return samples;
+
+    }
+
+    private static int sampleAt(byte[] bytes, int frame, int channel, int channels) {
+        int index = (frame * channels + channel) * 2;
+        return (short) ((bytes[index] & 0xFF) | (bytes[index + 1] << 8));
+    }
+
+}
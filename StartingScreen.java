@@ -0,0 +1,406 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DocumentFilter;
+
+/**
+ * The `StartingScreen` class represents the starting screen of the Fisherman Game.
+ * It allows the player to enter their name and start the game. It is built once and shown by
+ * the MainFrame every time the player returns to it.
+ */
+public class StartingScreen extends JPanel {
+    private MainFrame mainFrame;
+    private JPanel backgroundPanel; // Draws the background image behind the other components
+    private JButton startButton;
+    private JTextField nameField;
+    private JLabel titleLabel;
+    private JLabel nameLabel;
+    private JLabel personalBestLabel; // Shows the statistics of a returning player
+    private JPanel topScoresPanel; // Panel to display top scores
+    private java.util.List<JLabel> scoreLabels = new java.util.ArrayList<>(); // The scores shown on it
+
+    private JProgressBar loadingBar; // Shows the progress of loading the assets
+    private AssetPreloader preloader;
+
+    static final String BACKGROUND_IMAGE = "Images/background.jpg";
+    static final String BACKGROUND_MUSIC = "Sounds/songscreenframe.wav";
+
+    // Whether a starting screen was painted before, for the startup timings:
+    private static boolean shownOnce;
+
+    /**
+     * Creates a new `StartingScreen` for the Fisherman Game.
+     *
+     * @param mainFrame The window that shows the screens of the game.
+     */
+    public StartingScreen(MainFrame mainFrame) {
+
+        this.mainFrame = mainFrame;
+
+        /**
+         * Create a custom JPanel for setting a background image.
+         *
+         * This method is used to create a customized JPanel that allows setting a
+         * background image for the panel. The custom JPanel can be used to enhance the
+         * visual appearance of the user interface by displaying an image as the panel's
+         * background.
+         *
+         * @return A custom JPanel with support for a background image.
+         */
+        JPanel panel = backgroundPanel = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                // The image is drawn once the AssetPreloader has loaded it, the panel is never kept waiting:
+                BufferedImage backgroundImage = AssetCache.getLoadedImage(BACKGROUND_IMAGE, getWidth(), getHeight());
+                if (backgroundImage == null && preloader != null && preloader.isDone()) {
+                    // The screen has another size than it had when the loading started:
+                    backgroundImage = AssetCache.getImage(BACKGROUND_IMAGE, getWidth(), getHeight());
+                }
+                if (backgroundImage != null) {
+                    g.drawImage(backgroundImage, 0, 0, this);
+                }
+                if (!shownOnce) {
+                    shownOnce = true;
+                    FishGame.logStartup("starting screen shown");
+                }
+                mainFrame.screenShown(StartingScreen.this);
+            }
+        };
+
+        panel.setLayout(new BorderLayout());
+
+        /**
+         * Position the title at the top of the content or interface.
+         *
+         * This code snippet is used to specify the layout or arrangement of a title
+         * within the content or graphical interface, ensuring that it is displayed
+         * at the topmost part of the visual display.
+         */
+        titleLabel = new JLabel("WELCOME TO THE FISHERMAN GAME");
+        titleLabel.setFont(new Font("Serif", Font.PLAIN, 35));
+        titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        titleLabel.setPreferredSize(new Dimension(600, 200)); // Make the title less wide in the x-axis
+
+        /**
+         * Create a panel to center the label and text input components.
+         *
+         * This method is used to create a panel that serves as a container for the label
+         * and text input components, ensuring they are visually centered within the panel.
+         * It helps in achieving an organized and visually appealing layout for user
+         * interface elements.
+         *
+         * @return A panel designed to center the label and text input components.
+         */
+        JPanel centerPanel = new JPanel();
+        centerPanel.setLayout(new BoxLayout(centerPanel, BoxLayout.Y_AXIS));
+        centerPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        centerPanel.setAlignmentY(Component.CENTER_ALIGNMENT);
+
+        /**
+         * Create a label and input field for entering a name at the center.
+         *
+         * This method is used to design and create a label and an input field specifically
+         * for the purpose of entering a name. These components are positioned at the center
+         * of the graphical interface, ensuring a visually balanced and user-friendly layout.
+         *
+         * @return An organized set of components for entering a name, centered in the layout.
+         */
+        nameLabel = new JLabel("Enter Your Name:");
+        nameLabel.setFont(new Font("Arial", Font.PLAIN, 16)); // Smaller font size
+        nameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        nameLabel.setAlignmentY(Component.CENTER_ALIGNMENT);
+
+        nameField = new JTextField(20);
+        nameField.setFont(new Font("Arial", Font.PLAIN, 18));
+        nameField.setMaximumSize(new Dimension(300, 30));
+
+        // Names are kept as short as a shared leaderboard accepts them, without control characters:
+        ((AbstractDocument) nameField.getDocument()).setDocumentFilter(new DocumentFilter() {
+            @Override
+            public void insertString(FilterBypass fb, int offset, String text, AttributeSet attributes) throws BadLocationException {
+                replace(fb, offset, 0, text, attributes);
+            }
+
+            @Override
+            public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attributes) throws BadLocationException {
+                String clean = text == null ? "" : text.replaceAll("\\p{Cntrl}", "");
+                int room = LeaderboardServer.MAX_NAME_LENGTH - (fb.getDocument().getLength() - length);
+                super.replace(fb, offset, length, clean.substring(0, Math.max(0, Math.min(room, clean.length()))), attributes);
+            }
+        });
+
+        centerPanel.add(Box.createRigidArea(new Dimension(0, 20))); // Add spacing above the label
+        centerPanel.add(nameLabel);
+        centerPanel.add(Box.createRigidArea(new Dimension(0, 10))); // Add spacing between label and input field
+        centerPanel.add(nameField);
+
+        /**
+         * Show the personal best of a returning player while the name is typed.
+         *
+         * The statistics are looked up in the player statistics file on every change of the
+         * name, which only reads the record of that player.
+         */
+        personalBestLabel = new JLabel(" ");
+        personalBestLabel.setFont(new Font("Arial", Font.PLAIN, 16));
+        personalBestLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        nameField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                showPersonalBest();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                showPersonalBest();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                showPersonalBest();
+            }
+        });
+
+        centerPanel.add(Box.createRigidArea(new Dimension(0, 10))); // Add spacing between input field and personal best
+        centerPanel.add(personalBestLabel);
+
+        /**
+         * Show the progress of loading the images and sounds of the game.
+         *
+         * The bar is hidden once everything is loaded, and the game cannot be started before.
+         */
+        loadingBar = new JProgressBar();
+        loadingBar.setStringPainted(true);
+        loadingBar.setString("Loading...");
+        loadingBar.setMaximumSize(new Dimension(300, 20));
+        loadingBar.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        centerPanel.add(Box.createRigidArea(new Dimension(0, 10))); // Add spacing between personal best and loading bar
+        centerPanel.add(loadingBar);
+
+        /**
+        * Create a "Start Game" button with a yellow background at the bottom.
+        *
+        * This method is used to design and create a button with the label "Start Game" and
+        * positions it at the bottom of the graphical interface. The button is styled with a
+        * yellow background to enhance its visual appearance.
+        *
+        * @return A "Start Game" button with a yellow background, placed at the bottom.
+        */
+        startButton = new JButton("Start Game");
+        startButton.setFont(new Font("Sans-Serif", Font.PLAIN, 24));
+        startButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        startButton.setPreferredSize(new Dimension(600, 80)); // Make the button less wide in the x-axis
+        startButton.setBackground(Color.YELLOW); // Set the button's background color to yellow
+        startButton.setEnabled(false); // Enabled once the assets are loaded
+
+        /**
+        * Add multiple components to the main panel of the user interface.
+        *
+        * This method is used to add a collection of graphical components, such as labels,
+        * input fields, and buttons, to the main panel of the user interface. It is an
+        * essential step in building and organizing the visual layout of the application.
+        *
+        * @param mainPanel The main panel to which components will be added.
+        */
+        panel.add(titleLabel, BorderLayout.NORTH);
+        panel.add(centerPanel, BorderLayout.CENTER);
+        panel.add(startButton, BorderLayout.SOUTH);
+
+        /**
+         * Create a panel for displaying top scores.
+         *
+         * This method is used to design and create a panel dedicated to displaying and
+         * presenting the top scores achieved by players. It facilitates the organization
+         * of score-related information in the graphical user interface.
+         *
+         * @return A panel for presenting top scores.
+         */
+        topScoresPanel = new JPanel();
+        topScoresPanel.add(Box.createRigidArea(new Dimension(0, 30)));
+        topScoresPanel.setLayout(new BoxLayout(topScoresPanel, BoxLayout.Y_AXIS));
+        topScoresPanel.setPreferredSize(new Dimension(300, 600)); // Adjust the size in the x-axis
+        topScoresPanel.setBackground(Color.PINK); // Set the background color to pink
+
+        /**
+         * Set a title for the top scores section.
+         *
+         * This method is used to define and set a title for the top scores section within
+         * the graphical user interface. It helps provide context and clarity about the
+         * purpose of the displayed top scores.
+         *
+         * @param title The title text to be displayed for the top scores section.
+         */
+        JLabel topScoresTitle = new JLabel("TOP SCORES");
+        topScoresTitle.setFont(new Font("Sans-Serif", Font.PLAIN, 24));
+        topScoresTitle.setAlignmentX(Component.CENTER_ALIGNMENT);
+        topScoresPanel.add(topScoresTitle);
+
+        /**
+         * Add the top scores panel to the right side of the user interface.
+         *
+         * This method is used to incorporate the panel displaying top scores into the
+         * right side of the graphical user interface. It positions and integrates the top
+         * scores information within the overall layout of the application.
+         *
+         * @param topScoresPanel The panel containing top scores to be added to the right.
+         */
+        panel.add(topScoresPanel, BorderLayout.EAST);
+
+        this.setLayout(new BorderLayout());
+        this.add(panel, BorderLayout.CENTER);
+
+        startButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                /**
+                 * Stop the background music.
+                 *
+                 * This method is used to halt the playback of background music in the application.
+                 * It terminates the audio stream, effectively silencing the background music.
+                 */
+                stopBackgroundMusic();
+
+                String playerName = nameField.getText();
+                if (!playerName.isEmpty()) {
+                    /**
+                     * Incorporate the 'playerName' variable into the game's logic.
+                     *
+                     * This comment suggests that the 'playerName' variable is intended to be utilized
+                     * as part of the game's logic. It is likely used to store or represent the name of
+                     * the player, which can be relevant for various in-game interactions and features.
+                     *
+                     * @param playerName The variable representing the name of the player.
+                     */
+                    mainFrame.startRound(playerName);
+                } else {
+                    JOptionPane.showMessageDialog(null, "Please enter your name.");
+                    playBackgroundMusic();
+                }
+            }
+        });
+    }
+
+    /**
+     * Prepares the screen every time it is shown: the music plays again, and the scores and the
+     * personal best are read again since a round may have ended. The first time, the assets of
+     * the game start loading in the background, in the size the screen has on the window.
+     */
+    void showing() {
+
+        playBackgroundMusic();
+        readFromFile();
+        showPersonalBest();
+        nameField.requestFocusInWindow();
+
+        if (preloader != null) {
+            return;
+        }
+
+        /**
+         * Load the assets of the game in the background while the screen is shown.
+         *
+         * Once everything is loaded, the other screens are built, so starting a round only
+         * switches screens.
+         */
+        preloader = AssetPreloader.start(backgroundPanel.getWidth(), backgroundPanel.getHeight());
+        preloader.addListener(new Runnable() {
+            @Override
+            public void run() {
+                loadingBar.setMaximum(preloader.getTotal());
+                loadingBar.setValue(preloader.getLoaded());
+                loadingBar.setString("Loading " + preloader.getLoaded() + " / " + preloader.getTotal());
+                if (preloader.isDone()) {
+                    preloader.removeListener(this);
+                    mainFrame.prepareScreens();
+                    loadingBar.setVisible(false);
+                    startButton.setEnabled(true);
+                    backgroundPanel.repaint(); // Draw the loaded background
+                }
+            }
+        });
+
+    }
+
+    /**
+     * Plays the background music for the starting screen. The music is streamed by the shared
+     * MusicPlayer, so this returns right away and does nothing if the music already plays.
+     */
+    private void playBackgroundMusic() {
+        MusicPlayer.getDefault().play(BACKGROUND_MUSIC);
+    }
+
+    /**
+     * Fades out the background music when no longer needed.
+     */
+    private void stopBackgroundMusic() {
+        MusicPlayer.getDefault().stop();
+    }
+
+    /**
+     * Shows the personal best, the average and the games played of the player whose name is typed.
+     */
+    private void showPersonalBest() {
+
+        String playerName = nameField.getText();
+        PlayerStats.Record stats = playerName.isEmpty() ? null : ScoreLog.getDefault().getPlayerStats(playerName);
+
+        if (stats == null) {
+            personalBestLabel.setText(" ");
+        } else {
+            personalBestLabel.setText(String.format("Personal best: %d   Average: %.1f   Games played: %d",
+                stats.getBest(), stats.getAverage(), stats.getGames()));
+        }
+
+    }
+
+    /**
+     * Reads the best scores from the leaderboard and populates the top scores panel. With a
+     * shared leaderboard, the local scores are shown until the shared ones arrive.
+     */
+    // Reading the name, score of the best results and adding them to the scoreboard, best first.
+    private void readFromFile(){
+        showScores(ScoreLog.getDefault().getTopScores());
+
+        if (FishGame.leaderboardClient != null) {
+            FishGame.leaderboardClient.fetchTop().whenComplete((scores, error) -> {
+                if (error != null) {
+                    System.out.println("Could not read the shared leaderboard, showing the local one: " + error);
+                } else {
+                    SwingUtilities.invokeLater(() -> showScores(scores));
+                }
+            });
+        }
+    }
+
+    /**
+     * Replaces the scores shown on the top scores panel.
+     *
+     * @param scores The "name: score" lines, best first.
+     */
+    private void showScores(java.util.List<String> scores) {
+        for (JLabel scoreLabel : scoreLabels) {
+            topScoresPanel.remove(scoreLabel);
+        }
+        scoreLabels.clear();
+
+        for (String nameScoreData : scores) {
+            JLabel scoreLabel = new JLabel(nameScoreData);
+            scoreLabel.setAlignmentX(Component.CENTER_ALIGNMENT); // Center scores within the panel
+            topScoresPanel.add(scoreLabel);
+            scoreLabels.add(scoreLabel);
+        }
+
+        topScoresPanel.revalidate();
+        topScoresPanel.repaint();
+    }
+
+}
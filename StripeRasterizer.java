@@ -0,0 +1,165 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The `StripeRasterizer` class renders still layers of the background without Graphics2D: every
+ * layer writes its pixels straight into the int[] of a premultiplied ARGB image. The image is
+ * split into horizontal stripes that are rendered in parallel on a fork-join pool, so rendering
+ * a large background scales with the number of cores. The result is drawn by Swing as one image.
+ */
+public class StripeRasterizer {
+
+    // The stripes are split until they are this many rows high or less:
+    static final int STRIPE_ROWS = 32;
+
+    /**
+     * The `Layer` interface is a shape that can render the part of itself that lies in a range of
+     * rows. It is called for several stripes at once, so it must not change any state.
+     */
+    public interface Layer {
+
+        /**
+         * Blends this layer over the pixels of the specified rows.
+         *
+         * @param pixels  The premultiplied ARGB pixels of the image, row by row.
+         * @param width   The width of the image.
+         * @param fromRow The first row to render.
+         * @param toRow   The row after the last row to render.
+         */
+        void rasterize(int[] pixels, int width, int fromRow, int toRow);
+
+    }
+
+    /**
+     * Renders the layers, in order, into a new transparent image.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @param pool   The pool the stripes are rendered on.
+     * @param layers The layers, the first one at the bottom.
+     * @return A TYPE_INT_ARGB_PRE image.
+     */
+    public static BufferedImage rasterize(int width, int height, ForkJoinPool pool, Layer... layers) {
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        pool.invoke(new StripeTask(pixels, width, 0, height, layers));
+        return image;
+
+    }
+
+    /**
+     * Renders the layers, in order, into a new transparent image on the common fork-join pool.
+     */
+    public static BufferedImage rasterize(int width, int height, Layer... layers) {
+        return rasterize(width, height, ForkJoinPool.commonPool(), layers);
+    }
+
+    /**
+     * Returns a color with an opacity as a premultiplied ARGB pixel.
+     *
+     * @param rgb   The color, without alpha.
+     * @param alpha The opacity, from 0 to 1.
+     */
+    static int premultiply(int rgb, double alpha) {
+        return blendOver(0, rgb, alpha);
+    }
+
+    /**
+     * Blends a color over a premultiplied pixel (source over).
+     *
+     * @param pixels The premultiplied ARGB pixels.
+     * @param index  The index of the pixel.
+     * @param rgb    The color, without alpha.
+     * @param alpha  The opacity of the color over the pixel, from 0 to 1.
+     */
+    static void blend(int[] pixels, int index, int rgb, double alpha) {
+
+        if (alpha <= 0) {
+            return;
+        }
+        if (alpha >= 1) {
+            pixels[index] = 0xFF000000 | rgb;
+            return;
+        }
+
+        pixels[index] = blendOver(pixels[index], rgb, alpha);
+
+    }
+
+    private static int blendOver(int destination, int rgb, double alpha) {
+
+        double keep = 1 - alpha;
+        int a = (int) (alpha * 255 + (destination >>> 24) * keep + 0.5);
+        int r = (int) (((rgb >> 16) & 0xFF) * alpha + ((destination >> 16) & 0xFF) * keep + 0.5);
+        int g = (int) (((rgb >> 8) & 0xFF) * alpha + ((destination >> 8) & 0xFF) * keep + 0.5);
+        int b = (int) ((rgb & 0xFF) * alpha + (destination & 0xFF) * keep + 0.5);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+
+    }
+
+    /**
+     * Returns how much of a pixel lies inside a circle, estimated from the distance of the
+     * pixel's center to the edge, which gives the edges the same softness as antialiasing.
+     *
+     * @return The coverage, from 0 to 1.
+     */
+    static double circleCoverage(double centerX, double centerY, double radius, int x, int y) {
+
+        double dx = x + 0.5 - centerX;
+        double dy = y + 0.5 - centerY;
+        double distanceSquared = dx * dx + dy * dy;
+
+        // Most pixels are far outside or inside, which needs no square root:
+        double outer = radius + 0.5;
+        if (distanceSquared >= outer * outer) {
+            return 0.0;
+        }
+        double inner = radius - 0.5;
+        if (inner > 0 && distanceSquared <= inner * inner) {
+            return 1.0;
+        }
+        return Math.max(0.0, Math.min(1.0, outer - Math.sqrt(distanceSquared)));
+
+    }
+
+    /*
+     * Splits the rows in halves until a stripe is small enough, then renders every layer on it.
+     */
+    private static class StripeTask extends RecursiveAction {
+
+        private final int[] pixels;
+        private final int width;
+        private final int fromRow;
+        private final int toRow;
+        private final Layer[] layers;
+
+        StripeTask(int[] pixels, int width, int fromRow, int toRow, Layer[] layers) {
+            this.pixels = pixels;
+            this.width = width;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.layers = layers;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (toRow - fromRow <= STRIPE_ROWS) {
+                for (Layer layer : layers) {
+                    layer.rasterize(pixels, width, fromRow, toRow);
+                }
+                return;
+            }
+
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new StripeTask(pixels, width, fromRow, middle, layers),
+                new StripeTask(pixels, width, middle, toRow, layers));
+
+        }
+
+    }
+
+}
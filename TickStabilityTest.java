@@ -0,0 +1,130 @@
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * The `TickStabilityTest` class checks that the ticks stay steady while the renderer is slow. A
+ * round is advanced by the GamePanel's SimulationLoop while a deliberately throttled renderer
+ * keeps the event dispatch thread busy: every frame it paints takes --render-millis, and it
+ * casts and pulls the bait in between, the way a player would. The time between the starts of
+ * the ticks and the drift of the game time are then compared with the tick length. The test
+ * fails with exit code 1 if the 99th percentile of the tick interval or the drift is too large.
+ *
+ * With --edt the ticks are run by a Swing timer on the event dispatch thread instead, the way
+ * the game used to be driven, to compare how the same renderer delays them.
+ *
+ * Usage: java -Djava.awt.headless=true TickStabilityTest [--seconds=10] [--render-millis=100]
+ *                                                       [--max-interval-millis=40] [--edt]
+ */
+public class TickStabilityTest {
+
+    static final int WINDOW_WIDTH = 1280;
+    static final int WINDOW_HEIGHT = 920;
+
+    // The most game time that may be lost, in milliseconds:
+    static final long MAX_DRIFT_MILLIS = 2 * GameClock.TICK_MILLIS;
+
+    static volatile boolean rendering;
+    static long frames;
+
+    public static void main(String[] args) throws Exception {
+
+        int seconds = 10;
+        int renderMillis = 100;
+        double maxIntervalMillis = 40;
+        boolean edt = false;
+
+        for (String arg : args) {
+            if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else if (arg.startsWith("--render-millis=")) {
+                renderMillis = Integer.parseInt(arg.substring("--render-millis=".length()));
+            } else if (arg.startsWith("--max-interval-millis=")) {
+                maxIntervalMillis = Double.parseDouble(arg.substring("--max-interval-millis=".length()));
+            } else if (arg.equals("--edt")) {
+                edt = true;
+            }
+        }
+
+        GamePanel[] panel = new GamePanel[1];
+        SwingUtilities.invokeAndWait(() -> {
+            panel[0] = new GamePanel(WINDOW_WIDTH, WINDOW_HEIGHT, "Tick Test");
+            panel[0].resetRound();
+        });
+        GamePanel gamePanel = panel[0];
+
+        Histogram edtIntervals = new Histogram();
+        long[] lastTick = new long[1];
+        Timer timer = new Timer(GameClock.TICK_MILLIS, e -> {
+            int dueTicks = gamePanel.clock.advance();
+            for (int i = 0; i < dueTicks && !gamePanel.engine.isEnded(); i++) {
+                long now = System.nanoTime();
+                if (lastTick[0] != 0) {
+                    edtIntervals.record(now - lastTick[0]);
+                }
+                lastTick[0] = now;
+                gamePanel.tick();
+            }
+        });
+
+        int frameMillis = renderMillis;
+        boolean onEdt = edt;
+        SwingUtilities.invokeAndWait(() -> {
+            gamePanel.clock.start();
+            if (onEdt) {
+                timer.start();
+            } else {
+                gamePanel.simulation.start();
+            }
+            rendering = true;
+            renderSlowly(gamePanel, frameMillis);
+        });
+
+        Thread.sleep(seconds * 1000L);
+
+        rendering = false;
+        SwingUtilities.invokeAndWait(() -> {
+            timer.stop();
+            gamePanel.stopLoop();
+        });
+
+        Histogram intervals = edt ? edtIntervals : gamePanel.simulation.getTickIntervals();
+        GameClock clock = gamePanel.clock;
+        double p99Millis = intervals.percentile(0.99) / 1e6;
+
+        System.out.printf("%s, renderer taking %d ms per frame: %d frames rendered, %d ticks run%n",
+            edt ? "Ticks on the event dispatch thread" : "Ticks on the simulation thread",
+            renderMillis, frames, gamePanel.engine.getTicks());
+        System.out.printf("Tick interval: p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms (a tick is %d ms)%n",
+            intervals.percentile(0.50) / 1e6, intervals.percentile(0.90) / 1e6, p99Millis,
+            intervals.getMax() / 1e6, GameClock.TICK_MILLIS);
+        System.out.println(clock.report());
+
+        boolean passed = p99Millis <= maxIntervalMillis && Math.abs(clock.getDriftMillis()) <= MAX_DRIFT_MILLIS;
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+
+    }
+
+    /**
+     * Renders one slow frame on the event dispatch thread and schedules the next one, so the
+     * thread is always busy painting. Every frame casts or pulls the bait.
+     */
+    static void renderSlowly(GamePanel gamePanel, int renderMillis) {
+
+        if (!rendering) {
+            return;
+        }
+
+        try {
+            Thread.sleep(renderMillis);
+        } catch (InterruptedException e) {
+            return;
+        }
+        frames++;
+        gamePanel.inputQueue.offer(frames % 2 == 1 ? GameEngine.INPUT_CAST : GameEngine.INPUT_PULL, System.nanoTime());
+
+        SwingUtilities.invokeLater(() -> renderSlowly(gamePanel, renderMillis));
+
+    }
+
+}
@@ -1,11 +1,13 @@
-
 import java.awt.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
 
 /**
  * The `Water` class is used to create a water effect for drawing on a graphics context.
+ * The waves are rendered once into a translucent image which is then reused on every frame.
+ * They can also be rasterized into the pixels of a background layer.
  */
-public class Water implements drawObject<Graphics2D> {
+public class Water implements drawObject<Graphics2D>, StripeRasterizer.Layer {
 
     private int height;
     private int width;
@@ -14,6 +16,15 @@ public class Water implements drawObject<Graphics2D> {
     private double waveFrequency;
     private Color color;
 
+    // Pre-rendered water layer, rebuilt only when it is marked as dirty:
+    private BufferedImage cache;
+    private int cacheTop;
+    private GraphicsConfiguration cacheConfiguration;
+    private boolean dirty = true;
+
+    // The top of the wave in every column, used by rasterize():
+    private double[] waveTops;
+
     /**
      * Constructs a new Water object with the specified parameters.
      *
@@ -33,7 +44,48 @@ public class Water implements drawObject<Graphics2D> {
         this.waveAmplitude = waveAmplitude;
         this.waveFrequency = waveFrequency;
         this.color = color;
+        updateWaveTops();
+
+    }
+
+    /**
+     * Changes the size of the water, the cached layer is rendered again on the next draw.
+     *
+     * @param width  The new width of the water.
+     * @param height The new height of the water.
+     */
+    public void setSize(int width, int height) {
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            dirty = true;
+            updateWaveTops();
+        }
+    }
+
+    /**
+     * Changes the shape of the waves, the cached layer is rendered again on the next draw.
+     *
+     * @param waveHeight    The height of the waves in the water.
+     * @param waveAmplitude The amplitude of the waves.
+     * @param waveFrequency The frequency of the waves.
+     */
+    public void setWaves(int waveHeight, int waveAmplitude, double waveFrequency) {
+        this.waveHeight = waveHeight;
+        this.waveAmplitude = waveAmplitude;
+        this.waveFrequency = waveFrequency;
+        dirty = true;
+        updateWaveTops();
+    }
 
+    /**
+     * Changes the color of the water, the cached layer is rendered again on the next draw.
+     *
+     * @param color The new color of the water.
+     */
+    public void setColor(Color color) {
+        this.color = color;
+        dirty = true;
     }
 
     /**
@@ -44,17 +96,109 @@ public class Water implements drawObject<Graphics2D> {
     @Override
     public void draw(Graphics2D g2d) {
 
+        GraphicsConfiguration configuration = g2d.getDeviceConfiguration();
+
+        if (dirty || cache == null || configuration != cacheConfiguration) {
+            render(configuration, g2d.getRenderingHints());
+        }
+
+        g2d.drawImage(cache, 0, cacheTop, null);
+
+    }
+
+    /**
+     * Renders the waves into a translucent image that is compatible with the screen.
+     *
+     * @param configuration The configuration of the device the water is drawn on.
+     * @param hints         The rendering hints of the graphics context the water is drawn on.
+     */
+    private void render(GraphicsConfiguration configuration, RenderingHints hints) {
+
+        if (cache != null) {
+            cache.flush();
+        }
+
+        // Only the rows the waves can reach are kept, the empty sky above them is not blended on every draw:
+        cacheTop = Math.max(0, Math.min(height - 1, height - waveHeight - Math.abs(waveAmplitude) - 1));
+        int cacheHeight = Math.max(height - cacheTop, 1);
+
+        if (configuration != null) {
+            cache = configuration.createCompatibleImage(Math.max(width, 1), cacheHeight, Transparency.TRANSLUCENT);
+        } else {
+            cache = new BufferedImage(Math.max(width, 1), cacheHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g2d = cache.createGraphics();
+        g2d.translate(0, -cacheTop);
+        g2d.setRenderingHints(hints);
+        g2d.setColor(color);
+
+        Rectangle2D.Double r1 = new Rectangle2D.Double();
+
         for (int x = 0; x < width; x += 1) {
 
             double y = waveAmplitude * Math.sin(waveFrequency * x);
 
-            Rectangle2D.Double r1 = new Rectangle.Double(x, height - waveHeight - y, 1, waveHeight + y);
-
-            g2d.setColor(color);
+            r1.setRect(x, height - waveHeight - y, 1, waveHeight + y);
             g2d.fill(r1);
 
         }
 
+        g2d.dispose();
+
+        cacheConfiguration = configuration;
+        dirty = false;
+
+    }
+
+    /*
+     * Computes the top of the wave in every column. A new array is made, so a rasterize() that
+     * is running keeps the old one.
+     */
+    private void updateWaveTops() {
+
+        double[] tops = new double[Math.max(width, 0)];
+        for (int x = 0; x < tops.length; x++) {
+            tops[x] = height - waveHeight - waveAmplitude * Math.sin(waveFrequency * x);
+        }
+        waveTops = tops;
+
+    }
+
+    /**
+     * Blends the waves over the pixels of the specified rows. Every column is filled from the
+     * wave down, the top pixel only partly, like the antialiased rectangles drawn by render().
+     */
+    @Override
+    public void rasterize(int[] pixels, int width, int fromRow, int toRow) {
+
+        // The rows above the highest wave stay empty:
+        int top = Math.max(fromRow, height - waveHeight - Math.abs(waveAmplitude) - 1);
+        int bottom = Math.min(toRow, height);
+        if (top >= bottom) {
+            return;
+        }
+
+        int rgb = color.getRGB() & 0xFFFFFF;
+        double opacity = color.getAlpha() / 255.0;
+        // The pixel of the water over an empty pixel, which is most of them:
+        int solid = StripeRasterizer.premultiply(rgb, opacity);
+        double[] tops = waveTops;
+        int columns = Math.min(width, tops.length);
+
+        // Row by row, so the pixels are written in the order they lie in memory:
+        for (int row = top; row < bottom; row++) {
+            int index = row * width;
+            for (int x = 0; x < columns; x++, index++) {
+                double coverage = row + 1 - tops[x];
+                if (coverage >= 1.0 && pixels[index] == 0) {
+                    pixels[index] = solid;
+                } else if (coverage > 0.0) {
+                    StripeRasterizer.blend(pixels, index, rgb, Math.min(1.0, coverage) * opacity);
+                }
+            }
+        }
+
     }
 
 }